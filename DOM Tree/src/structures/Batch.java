@@ -0,0 +1,163 @@
+package structures;
+
+import java.util.ArrayList;
+
+/**
+ * This class holds an ordered list of transformations of a DOM tree, to be
+ * applied with Tree.apply. Consecutive transformations are grouped in passes,
+ * each of which Tree.apply carries out at once, with the same result as
+ * applying its transformations one by one:
+ *
+ * replaceTag and removeTag are composed into one mapping of tags, applied to
+ * each node with a mapped tag once, and the addTag of a pass split each text
+ * node once around the words of all of them.
+ *
+ * A transformation begins a new pass if it is a boldRow or follows one, if it
+ * is a removeTag that follows an addTag of the pass, if it is a replaceTag of
+ * the tag of an addTag of the pass, or if it is an addTag whose word may match
+ * the same text as the word of an addTag of the pass.
+ *
+ */
+public class Batch {
+
+	/**
+	 * Kinds of transformations
+	 */
+	static final int REPLACE = 0, REMOVE = 1, ADD = 2, BOLD = 3;
+
+	/**
+	 * One transformation: its kind, its arguments as in the method of Tree, and
+	 * for addTag, its word in lower case
+	 */
+	static class Op {
+		int kind;
+		String first;
+		String second;
+		int row;
+		String lower;
+
+		Op(int kind, String first, String second, int row) {
+			this.kind = kind;
+			this.first = first;
+			this.second = second;
+			this.row = row;
+			if (kind == ADD)
+				lower = first.toLowerCase();
+		}
+	}
+
+	/**
+	 * Transformations, in order
+	 */
+	ArrayList<Op> ops = new ArrayList<Op>();
+
+	/**
+	 * Adds a replaceTag to this batch
+	 *
+	 * @param oldTag Old tag
+	 * @param newTag Replacement tag
+	 * @return This batch
+	 */
+	public Batch replaceTag(String oldTag, String newTag) {
+		ops.add(new Op(REPLACE, oldTag, newTag, 0));
+		return this;
+	}
+
+	/**
+	 * Adds a removeTag to this batch
+	 *
+	 * @param tag Tag to be removed
+	 * @return This batch
+	 */
+	public Batch removeTag(String tag) {
+		ops.add(new Op(REMOVE, tag, null, 0));
+		return this;
+	}
+
+	/**
+	 * Adds an addTag to this batch
+	 *
+	 * @param word Word around which tag is to be added
+	 * @param tag  Tag to be added
+	 * @return This batch
+	 */
+	public Batch addTag(String word, String tag) {
+		ops.add(new Op(ADD, word, tag, 0));
+		return this;
+	}
+
+	/**
+	 * Adds a boldRow to this batch
+	 *
+	 * @param row Row to bold, first row is numbered 1 (not 0).
+	 * @return This batch
+	 */
+	public Batch boldRow(int row) {
+		ops.add(new Op(BOLD, null, null, row));
+		return this;
+	}
+
+	/**
+	 * Returns the number of transformations in this batch
+	 *
+	 * @return Number of transformations
+	 */
+	public int size() {
+		return ops.size();
+	}
+
+	/**
+	 * Groups the transformations in passes
+	 *
+	 * @return Positions of the transformations that begin a pass, in increasing
+	 *         order
+	 */
+	int[] passes() {
+		int[] starts = new int[ops.size()];
+		int count = 0;
+
+		for (int i = 0, start = 0; i < ops.size(); i++) {
+			if (i == 0 || !joins(start, i)) {
+				start = i;
+				starts[count++] = i;
+			}
+		}
+
+		int[] passes = new int[count];
+		System.arraycopy(starts, 0, passes, 0, count);
+		return passes;
+	}
+
+	/**
+	 * Tells whether a transformation can be carried out in the pass of the
+	 * transformations from start to just before it
+	 */
+	private boolean joins(int start, int i) {
+		Op op = ops.get(i);
+
+		if (op.kind == BOLD)
+			return false;
+
+		for (int j = start; j < i; j++) {
+			Op prior = ops.get(j);
+
+			if (prior.kind == BOLD)
+				return false;
+
+			if (prior.kind != ADD)
+				continue;
+
+			if (op.kind == REMOVE)
+				return false;
+
+			if (op.kind == REPLACE && op.first.equals(prior.second))
+				return false;
+
+			// a text word matches both only if one of them begins the other
+			if (op.kind == ADD && (op.lower.startsWith(prior.lower) || prior.lower.startsWith(op.lower)))
+				return false;
+		}
+
+		return true;
+	}
+}
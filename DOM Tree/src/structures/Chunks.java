@@ -0,0 +1,93 @@
+package structures;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class runs a loop over a range of indexes in chunks, as tasks of a
+ * ForkJoinPool with a thread per processor when the range has at least
+ * THRESHOLD indexes and there is more than one processor, and on the calling
+ * thread otherwise. The body must only write what belongs
+ * to its own indexes, so that the result does not depend on how the range is
+ * split.
+ *
+ */
+final class Chunks {
+
+	/**
+	 * Body of a loop, run on the indexes from from to to - 1
+	 */
+	interface Body {
+		void run(int from, int to);
+	}
+
+	/**
+	 * Smallest number of indexes worth a task of their own
+	 */
+	static final int CHUNK = 1 << 12;
+
+	/**
+	 * Smallest number of indexes for which the loop is split at all. Renaming
+	 * tag nodes, the lightest body, takes about 2 ns an index on one core, so
+	 * shorter loops are done in some 70 us, the order of the time it takes to
+	 * wake up pool threads, and run faster on the calling thread
+	 */
+	static final int THRESHOLD = 1 << 15;
+
+	/**
+	 * Number of processors, and threads of the pool
+	 */
+	static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Pool that runs the tasks, created when first needed
+	 */
+	private static ForkJoinPool pool;
+
+	private Chunks() {
+	}
+
+	private static synchronized ForkJoinPool pool() {
+		if (pool == null)
+			pool = new ForkJoinPool(PARALLELISM);
+		return pool;
+	}
+
+	/**
+	 * Runs a loop over the indexes from 0 to count - 1
+	 *
+	 * @param count Number of indexes
+	 * @param body  Body of the loop
+	 */
+	static void run(int count, Body body) {
+		if (count < THRESHOLD || PARALLELISM < 2)
+			body.run(0, count);
+		else
+			pool().invoke(new Task(body, 0, count));
+	}
+
+	private static class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final Body body;
+		final int from;
+		final int to;
+
+		Task(Body body, int from, int to) {
+			this.body = body;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= CHUNK) {
+				body.run(from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Task(body, from, middle), new Task(body, middle, to));
+			}
+		}
+	}
+}
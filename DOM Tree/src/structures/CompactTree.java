@@ -0,0 +1,693 @@
+package structures;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.HashMap;
+import java.util.Scanner;
+
+/**
+ * This class implements an HTML DOM Tree with the same operations and results
+ * as Tree, but stores its nodes in parallel int arrays instead of TagNode
+ * objects, for documents of millions of nodes.
+ *
+ * Node i has a label, its first child, its next sibling and its parent, with
+ * -1 for none. A label of 0 or more is the id of an interned tag name; a
+ * negative label ~t is text number t, whose characters are encoded in a shared
+ * byte arena from textStart[t] to textStart[t + 1]. Each char is encoded on
+ * its own as in UTF-8, in 1 byte for ASCII, 2 up to U+07FF and 3 otherwise,
+ * surrogates included, so that any String is kept as it is. That is 16 bytes
+ * per node and 4 per text node, plus the encoded text, against about 60 bytes
+ * per node plus a String per text for Tree. The arrays are trimmed after a
+ * build, so a document of short texts takes about 20 bytes per node; one of a
+ * line of ASCII per paragraph, with 9 bytes of text per node, takes 27.
+ *
+ * Operations walk the arrays with explicit stacks, in time linear in the size
+ * of the tree. Nodes removed from the tree keep their slots in the arrays.
+ *
+ */
+public class CompactTree {
+
+	/**
+	 * Initial capacity, in nodes
+	 */
+	static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * Label, first child, next sibling and parent of each node
+	 */
+	int[] label = new int[INITIAL_CAPACITY];
+	int[] firstChild = new int[INITIAL_CAPACITY];
+	int[] sibling = new int[INITIAL_CAPACITY];
+	int[] parent = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Number of nodes
+	 */
+	int size;
+
+	/**
+	 * First node of the top level, or -1
+	 */
+	int root = -1;
+
+	/**
+	 * Encoded characters of all texts, and the start of each text in it;
+	 * textStart has one more entry than there are texts
+	 */
+	byte[] arena = new byte[16 * INITIAL_CAPACITY];
+	int[] textStart = new int[INITIAL_CAPACITY];
+	int texts;
+
+	/**
+	 * Tag names, by id, and their ids
+	 */
+	String[] names = new String[16];
+	HashMap<String, Integer> ids = new HashMap<String, Integer>();
+
+	/**
+	 * Scanner used to read input HTML file when building the tree
+	 */
+	Scanner sc;
+
+	/**
+	 * Initializes this tree object with scanner for input HTML file
+	 *
+	 * @param sc Scanner for input HTML file
+	 */
+	public CompactTree(Scanner sc) {
+		this.sc = sc;
+	}
+
+	/**
+	 * Initializes this tree object without a scanner, for a tree to be built
+	 * with build(ReadableByteChannel) or build(File)
+	 */
+	public CompactTree() {
+		this(null);
+	}
+
+	/**
+	 * Returns the id of a tag name, interning it if it is new
+	 */
+	int intern(String name) {
+		Integer id = ids.get(name);
+		if (id != null)
+			return id;
+
+		int next = ids.size();
+		if (next == names.length) {
+			String[] grown = new String[2 * next];
+			System.arraycopy(names, 0, grown, 0, next);
+			names = grown;
+		}
+		names[next] = name;
+		ids.put(name, next);
+		return next;
+	}
+
+	/**
+	 * Adds a node with no children and no sibling
+	 */
+	int newNode(int lbl, int par) {
+		if (size == label.length) {
+			int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+			label = grow(label, capacity);
+			firstChild = grow(firstChild, capacity);
+			sibling = grow(sibling, capacity);
+			parent = grow(parent, capacity);
+		}
+		label[size] = lbl;
+		firstChild[size] = -1;
+		sibling[size] = -1;
+		parent[size] = par;
+		return size++;
+	}
+
+	/**
+	 * Adds a text from a range of characters, and returns its label
+	 */
+	int newText(char[] chars, int start, int length) {
+		int end = textStart[texts];
+		reserve(end + 3 * length);
+		byte[] bytes = arena;
+		for (int i = start; i < start + length; i++) {
+			char c = chars[i];
+			if (c < 0x80) {
+				bytes[end++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[end++] = (byte) (0xC0 | c >> 6);
+				bytes[end++] = (byte) (0x80 | c & 0x3F);
+			} else {
+				bytes[end++] = (byte) (0xE0 | c >> 12);
+				bytes[end++] = (byte) (0x80 | c >> 6 & 0x3F);
+				bytes[end++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		return endText(end);
+	}
+
+	/**
+	 * Adds a text from a range of the arena itself, and returns its label
+	 */
+	int newText(int start, int length) {
+		int end = textStart[texts];
+		reserve(end + length);
+		System.arraycopy(arena, start, arena, end, length);
+		return endText(end + length);
+	}
+
+	/**
+	 * Grows the arena to at least the given number of bytes
+	 */
+	private void reserve(int length) {
+		if (length > arena.length)
+			arena = grow(arena, Math.max(length, arena.length + (arena.length >> 1)));
+	}
+
+	private int endText(int end) {
+		if (texts + 1 == textStart.length)
+			textStart = grow(textStart, Math.max(INITIAL_CAPACITY, textStart.length + (textStart.length >> 1)));
+		textStart[++texts] = end;
+		return ~(texts - 1);
+	}
+
+	private static int[] grow(int[] array, int length) {
+		int[] grown = new int[length];
+		System.arraycopy(array, 0, grown, 0, Math.min(array.length, length));
+		return grown;
+	}
+
+	private static byte[] grow(byte[] array, int length) {
+		byte[] grown = new byte[length];
+		System.arraycopy(array, 0, grown, 0, Math.min(array.length, length));
+		return grown;
+	}
+
+	/**
+	 * Shrinks the arrays to the nodes and texts they hold, once a build is done
+	 */
+	private void trim() {
+		label = grow(label, size);
+		firstChild = grow(firstChild, size);
+		sibling = grow(sibling, size);
+		parent = grow(parent, size);
+		arena = grow(arena, textStart[texts]);
+		textStart = grow(textStart, texts + 1);
+	}
+
+	/**
+	 * Appends nodes to the tree in document order, keeping the open tags and the
+	 * last child of each on int stacks
+	 */
+	private class Builder implements HtmlHandler {
+
+		int[] parents = new int[16];
+		int[] tails = new int[16];
+		int depth;
+		int par = -1;
+		int tail;
+
+		Builder() {
+			tail = root;
+			if (tail != -1)
+				while (sibling[tail] != -1)
+					tail = sibling[tail];
+		}
+
+		void append(int node) {
+			if (tail == -1) {
+				if (par == -1)
+					root = node;
+				else
+					firstChild[par] = node;
+			} else {
+				sibling[tail] = node;
+			}
+			tail = node;
+		}
+
+		void open(String tag) {
+			int node = newNode(intern(tag), par);
+			append(node);
+			if (depth == parents.length) {
+				parents = grow(parents, 2 * depth);
+				tails = grow(tails, 2 * depth);
+			}
+			parents[depth] = par;
+			tails[depth++] = tail;
+			par = node;
+			tail = -1;
+		}
+
+		boolean close() {
+			if (depth == 0)
+				return false;
+
+			depth--;
+			par = parents[depth];
+			tail = tails[depth];
+			return true;
+		}
+
+		public void startTag(String tag) {
+			open(tag);
+		}
+
+		public void endTag(String tag) {
+			close();
+		}
+
+		public void text(char[] chars, int start, int length) {
+			append(newNode(newText(chars, start, length), par));
+		}
+	}
+
+	/**
+	 * Builds the DOM tree from input HTML file, through scanner passed in to the
+	 * constructor and stored in the sc field of this object, as Tree.build does.
+	 */
+	public void build() {
+		Builder builder = new Builder();
+
+		while (this.sc.hasNext()) {
+			String line = this.sc.nextLine();
+
+			if (line.charAt(0) == '<') {
+				if (line.charAt(1) == '/') {
+					if (!builder.close())
+						break;
+				} else {
+					builder.open(line.substring(1, line.length() - 1));
+				}
+			} else {
+				builder.text(line.toCharArray(), 0, line.length());
+			}
+		}
+		trim();
+	}
+
+	/**
+	 * Builds the DOM tree from HTML read from a channel with an HtmlTokenizer, as
+	 * Tree.build(ReadableByteChannel) does. Text goes from the buffers of the
+	 * tokenizer straight into the arena.
+	 *
+	 * @param channel Channel to read, which is not closed
+	 * @throws IOException If the channel cannot be read
+	 */
+	public void build(ReadableByteChannel channel) throws IOException {
+		new HtmlTokenizer(new Builder()).parse(channel);
+		trim();
+	}
+
+	/**
+	 * Builds the DOM tree from an HTML file, which is memory-mapped and read with
+	 * an HtmlTokenizer, as in build(ReadableByteChannel).
+	 *
+	 * @param file File to read
+	 * @throws IOException If the file cannot be read
+	 */
+	public void build(File file) throws IOException {
+		new HtmlTokenizer(new Builder()).parse(file);
+		trim();
+	}
+
+	/**
+	 * Replaces all occurrences of an old tag in the DOM tree with a new tag
+	 *
+	 * @param oldTag Old tag
+	 * @param newTag Replacement tag
+	 */
+	public void replaceTag(String oldTag, String newTag) {
+		Integer from = ids.get(oldTag);
+
+		if (from == null)
+			return;
+
+		int to = intern(newTag);
+		int old = from;
+		for (int i = 0; i < size; i++)
+			if (label[i] == old)
+				label[i] = to;
+	}
+
+	/**
+	 * Returns the first node with the given tag in document order, or -1
+	 */
+	private int findTag(String tag) {
+		Integer id = ids.get(tag);
+
+		if (id == null)
+			return -1;
+
+		int[] siblings = new int[16];
+		int depth = 0;
+		int ptr = root;
+		while (ptr != -1) {
+			if (label[ptr] == id)
+				return ptr;
+
+			if (firstChild[ptr] != -1) {
+				if (sibling[ptr] != -1) {
+					if (depth == siblings.length)
+						siblings = grow(siblings, 2 * depth);
+					siblings[depth++] = sibling[ptr];
+				}
+				ptr = firstChild[ptr];
+			} else if (sibling[ptr] != -1) {
+				ptr = sibling[ptr];
+			} else {
+				ptr = depth == 0 ? -1 : siblings[--depth];
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Boldfaces every column of the given row of the table in the DOM tree, as
+	 * Tree.boldRow does.
+	 *
+	 * @param row Row to bold, first row is numbered 1 (not 0).
+	 */
+	public void boldRow(int row) {
+		row -= 1;
+		int table = findTag("table");
+
+		if (table == -1)
+			return;
+
+		int trs = firstChild[table];
+		for (int i = 0; i < row; ++i) {
+			if (trs == -1)
+				return;
+
+			trs = sibling[trs];
+		}
+
+		// Tree dereferences the row just past the last one
+		if (trs == -1)
+			throw new NullPointerException();
+
+		int b = intern("b");
+		for (int tds = firstChild[trs]; tds != -1; tds = sibling[tds]) {
+			int bold = newNode(b, tds);
+			firstChild[bold] = firstChild[tds];
+			for (int ptr = firstChild[bold]; ptr != -1; ptr = sibling[ptr])
+				parent[ptr] = bold;
+			firstChild[tds] = bold;
+		}
+	}
+
+	/**
+	 * Remove all occurrences of a tag from the DOM tree, replacing each by its
+	 * children in place, as Tree.removeTag does.
+	 *
+	 * @param tag Tag to be removed
+	 */
+	public void removeTag(String tag) {
+		Integer id = ids.get(tag);
+
+		if (id == null)
+			return;
+
+		int removed = id;
+		int[] lists = new int[16];
+		int count = 0;
+		lists[count++] = -1;
+
+		while (count > 0) {
+			int par = lists[--count];
+			int prev = -1;
+			int ptr = par == -1 ? root : firstChild[par];
+
+			while (ptr != -1) {
+				if (label[ptr] == removed) {
+					// the children take the place of ptr, and are looked at next
+					int children = firstChild[ptr];
+					int next = sibling[ptr];
+					int last = -1;
+					for (int child = children; child != -1; child = sibling[child]) {
+						parent[child] = par;
+						last = child;
+					}
+					if (last != -1)
+						sibling[last] = next;
+					int first = children != -1 ? children : next;
+					if (prev != -1)
+						sibling[prev] = first;
+					else if (par != -1)
+						firstChild[par] = first;
+					else
+						root = first;
+					ptr = first;
+					continue;
+				}
+
+				if (firstChild[ptr] != -1) {
+					if (count == lists.length)
+						lists = grow(lists, 2 * count);
+					lists[count++] = ptr;
+				}
+				prev = ptr;
+				ptr = sibling[ptr];
+			}
+		}
+	}
+
+	/**
+	 * Adds a tag around all occurrences of a word in the DOM tree, with the
+	 * matching rule of Tree.addTag: a run of characters between spaces or tabs
+	 * of a text node with no children that is the word, ignoring case, possibly
+	 * followed by one punctuation mark.
+	 *
+	 * @param word Word around which tag is to be added
+	 * @param tag  Tag to be added
+	 */
+	public void addTag(String word, String tag) {
+		String lower = word.toLowerCase();
+		int id = -1;
+		int[] lists = new int[16];
+		int count = 0;
+		lists[count++] = -1;
+
+		while (count > 0) {
+			int par = lists[--count];
+			int prev = -1;
+			int ptr = par == -1 ? root : firstChild[par];
+
+			while (ptr != -1) {
+				int next = sibling[ptr];
+
+				if (label[ptr] < 0 && firstChild[ptr] == -1) {
+					int t = ~label[ptr];
+					int start = textStart[t];
+					int end = textStart[t + 1];
+					int match = nextMatch(start, end, lower, word.length());
+					if (match != -1) {
+						if (id == -1)
+							id = intern(tag);
+						int last = split(ptr, start, end, match, lower, word.length(), id, par);
+						if (prev != -1)
+							sibling[prev] = sibling[ptr];
+						else if (par != -1)
+							firstChild[par] = sibling[ptr];
+						else
+							root = sibling[ptr];
+						prev = last;
+						ptr = next;
+						continue;
+					}
+				} else if (firstChild[ptr] != -1) {
+					if (count == lists.length)
+						lists = grow(lists, 2 * count);
+					lists[count++] = ptr;
+				}
+
+				prev = ptr;
+				ptr = next;
+			}
+		}
+	}
+
+	/**
+	 * Returns the start of the first word of the arena from from to end that
+	 * matches, or -1
+	 */
+	private int nextMatch(int from, int end, String lower, int length) {
+		int pos = from;
+		while (pos < end) {
+			byte c = arena[pos];
+			if (c == ' ' || c == '\t') {
+				pos++;
+				continue;
+			}
+
+			int wordEnd = pos;
+			while (wordEnd < end && arena[wordEnd] != ' ' && arena[wordEnd] != '\t')
+				wordEnd++;
+
+			// a char is encoded in one byte that is not a continuation byte and
+			// up to two that are
+			int n = 0;
+			for (int i = pos; i < wordEnd; i++)
+				if ((arena[i] & 0xC0) != 0x80)
+					n++;
+			if (n == length || n == length + 1) {
+				String tok = decode(pos, wordEnd, new StringBuilder(n)).toString().toLowerCase();
+				boolean beginsWith = tok.startsWith(lower);
+				if (beginsWith && tok.length() == length
+						|| beginsWith && tok.length() == length + 1 && WordIndex.isPunc(tok.charAt(tok.length() - 1)))
+					return pos;
+			}
+			pos = wordEnd;
+		}
+		return -1;
+	}
+
+	/**
+	 * Replaces a text node by the pieces of its text between matching words and
+	 * the words themselves under new tag nodes, linked after the node as its
+	 * siblings; the caller unlinks the node. Returns the last piece.
+	 */
+	private int split(int node, int start, int end, int match, String lower, int length, int id, int par) {
+		int tail = node;
+		int pos = start;
+
+		while (match != -1) {
+			int wordEnd = match;
+			while (wordEnd < end && arena[wordEnd] != ' ' && arena[wordEnd] != '\t')
+				wordEnd++;
+
+			if (match > pos)
+				tail = link(tail, newNode(newText(pos, match - pos), par));
+
+			int wrap = newNode(id, par);
+			// newNode may grow firstChild, so it is not indexed before the call
+			int text = newNode(newText(match, wordEnd - match), wrap);
+			firstChild[wrap] = text;
+			tail = link(tail, wrap);
+
+			pos = wordEnd;
+			match = nextMatch(pos, end, lower, length);
+		}
+
+		if (pos < end)
+			tail = link(tail, newNode(newText(pos, end - pos), par));
+
+		return tail;
+	}
+
+	private int link(int tail, int node) {
+		sibling[node] = sibling[tail];
+		sibling[tail] = node;
+		return node;
+	}
+
+	/**
+	 * Gets the HTML represented by this DOM tree, as Tree.getHTML does.
+	 *
+	 * @return HTML string, including new lines.
+	 */
+	public String getHTML() {
+		StringBuilder sb = new StringBuilder();
+		int[] open = new int[16];
+		int depth = 0;
+		int ptr = root;
+
+		while (true) {
+			if (ptr == -1) {
+				if (depth == 0)
+					break;
+
+				int node = open[--depth];
+				sb.append("</");
+				appendLabel(node, sb);
+				sb.append(">\n");
+				ptr = sibling[node];
+				continue;
+			}
+
+			if (firstChild[ptr] == -1) {
+				appendLabel(ptr, sb);
+				sb.append("\n");
+				ptr = sibling[ptr];
+			} else {
+				sb.append("<");
+				appendLabel(ptr, sb);
+				sb.append(">\n");
+				if (depth == open.length)
+					open = grow(open, 2 * depth);
+				open[depth++] = ptr;
+				ptr = firstChild[ptr];
+			}
+		}
+
+		return sb.toString();
+	}
+
+	private void appendLabel(int node, StringBuilder sb) {
+		int lbl = label[node];
+		if (lbl >= 0) {
+			sb.append(names[lbl]);
+		} else {
+			int t = ~lbl;
+			decode(textStart[t], textStart[t + 1], sb);
+		}
+	}
+
+	/**
+	 * Appends the characters encoded in the arena from start to end
+	 */
+	private StringBuilder decode(int start, int end, StringBuilder sb) {
+		byte[] bytes = arena;
+		for (int i = start; i < end; i++) {
+			int b = bytes[i];
+			if (b >= 0) {
+				sb.append((char) b);
+			} else if ((b & 0xE0) == 0xC0) {
+				sb.append((char) ((b & 0x1F) << 6 | bytes[++i] & 0x3F));
+			} else {
+				int b1 = bytes[++i];
+				sb.append((char) ((b & 0x0F) << 12 | (b1 & 0x3F) << 6 | bytes[++i] & 0x3F));
+			}
+		}
+		return sb;
+	}
+
+	/**
+	 * Prints the DOM tree, as Tree.print does.
+	 *
+	 */
+	public void print() {
+		int[] open = new int[16];
+		int depth = 0;
+		int ptr = root;
+
+		while (true) {
+			if (ptr == -1) {
+				if (depth == 0)
+					break;
+
+				ptr = sibling[open[--depth]];
+				continue;
+			}
+
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < depth; i++)
+				sb.append("      ");
+			sb.append(depth > 0 ? "|----" : "     ");
+			appendLabel(ptr, sb);
+			System.out.println(sb);
+
+			if (firstChild[ptr] != -1) {
+				if (depth == open.length)
+					open = grow(open, 2 * depth);
+				open[depth++] = ptr;
+				ptr = firstChild[ptr];
+			} else {
+				ptr = sibling[ptr];
+			}
+		}
+	}
+}
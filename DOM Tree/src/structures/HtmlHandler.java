@@ -0,0 +1,35 @@
+package structures;
+
+/**
+ * This interface receives the events of an HtmlTokenizer, in document order.
+ * 
+ */
+public interface HtmlHandler {
+
+	/**
+	 * Called for a start tag, such as &lt;em&gt;.
+	 *
+	 * @param tag Tag name, without the '&lt;', '&gt;' or attributes. The same
+	 *            String instance is passed for every occurrence of a tag name.
+	 */
+	void startTag(String tag);
+
+	/**
+	 * Called for an end tag, such as &lt;/em&gt;, and right after the start tag
+	 * of a self-closing or void element, such as &lt;br/&gt; or &lt;br&gt;.
+	 *
+	 * @param tag Tag name
+	 */
+	void endTag(String tag);
+
+	/**
+	 * Called for a line of text between tags that is not only white space. The
+	 * characters are only valid during the call, and must be copied if they are
+	 * to be kept.
+	 *
+	 * @param chars Buffer holding the text
+	 * @param start Index of the first character of the text in chars
+	 * @param length Number of characters of the text
+	 */
+	void text(char[] chars, int start, int length);
+}
@@ -0,0 +1,429 @@
+package structures;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * This class implements a streaming HTML tokenizer, which reads a document
+ * from a channel or a memory-mapped file and reports start tags, end tags and
+ * text to an HtmlHandler as it goes, without building a tree.
+ *
+ * Input is decoded as UTF-8, and any number of tags and text may be on one
+ * line. Text is split at line ends, and lines of text that are only white
+ * space are skipped, so that a file with one tag or text item per line gives
+ * the same events as the lines themselves. Attributes are skipped, tags named
+ * in VOID_TAGS and tags closed by "/&gt;" are reported as a start tag followed
+ * by an end tag, and comments, &lt;!DOCTYPE&gt; and &lt;?...?&gt; are skipped.
+ * Entities are passed through as they are. A '&lt;' that does not start a tag
+ * is text.
+ *
+ * Bytes are decoded into reusable buffers, and tag names are looked up in a
+ * table of names already seen, so that no object is created per tag or line;
+ * only the handler creates the Strings it keeps.
+ *
+ */
+public class HtmlTokenizer {
+
+	/**
+	 * Size of the buffer used to read from channels.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Largest part of a file mapped at once.
+	 */
+	static final int WINDOW_SIZE = 1 << 30;
+
+	/**
+	 * Tags of elements that have no content and no end tag.
+	 */
+	static final String[] VOID_TAGS = { "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta",
+			"source", "track", "wbr" };
+
+	/**
+	 * Largest number of distinct tag names kept in the table of names.
+	 */
+	static final int MAX_NAMES = 4096;
+
+	/**
+	 * States of the tokenizer.
+	 */
+	private static final int TEXT = 0, LESS_THAN = 1, START_NAME = 2, ATTRIBUTES = 3, END_NAME = 4, END_REST = 5,
+			BANG = 6, BANG_DASH = 7, COMMENT = 8, DECLARATION = 9;
+
+	/**
+	 * Receiver of the events.
+	 */
+	private HtmlHandler handler;
+
+	/**
+	 * Current state.
+	 */
+	private int state;
+
+	/**
+	 * Text of the current line, and whether it has other than white space.
+	 */
+	private char[] text = new char[256];
+	private int textLength;
+	private boolean textBlank;
+
+	/**
+	 * Name of the current tag.
+	 */
+	private char[] name = new char[32];
+	private int nameLength;
+
+	/**
+	 * In attributes, the quote character of the current value, or 0, and
+	 * whether the last character outside white space was '/'.
+	 */
+	private char quote;
+	private boolean slash;
+
+	/**
+	 * Number of consecutive '-' in a comment.
+	 */
+	private int dashes;
+
+	/**
+	 * Code point being decoded, and number of UTF-8 continuation bytes still
+	 * expected.
+	 */
+	private int codePoint;
+	private int pending;
+
+	/**
+	 * Table of tag names, open addressed, and the number of names in it.
+	 */
+	private String[] names = new String[64];
+	private int nameCount;
+
+	/**
+	 * Initializes this tokenizer with the handler that receives its events.
+	 *
+	 * @param handler Handler of the events
+	 */
+	public HtmlTokenizer(HtmlHandler handler) {
+		this.handler = handler;
+		for (int i = 0; i < VOID_TAGS.length; i++) {
+			insert(VOID_TAGS[i]);
+		}
+	}
+
+	/**
+	 * Reads a document from a channel to its end, reporting its events.
+	 *
+	 * @param channel Channel to read, which is not closed
+	 * @throws IOException If the channel cannot be read
+	 */
+	public void parse(ReadableByteChannel channel) throws IOException {
+		reset();
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		byte[] bytes = buffer.array();
+		while (channel.read(buffer) >= 0) {
+			for (int i = 0; i < buffer.position(); i++) {
+				decode(bytes[i]);
+			}
+			buffer.clear();
+		}
+		finish();
+	}
+
+	/**
+	 * Reads a document from a file, which is memory-mapped, reporting its
+	 * events.
+	 *
+	 * @param file File to read
+	 * @throws IOException If the file cannot be read
+	 */
+	public void parse(File file) throws IOException {
+		reset();
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			for (long position = 0; position < size; position += WINDOW_SIZE) {
+				ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(WINDOW_SIZE, size - position));
+				while (window.hasRemaining()) {
+					decode(window.get());
+				}
+			}
+		} finally {
+			in.close();
+		}
+		finish();
+	}
+
+	private void reset() {
+		state = TEXT;
+		textLength = 0;
+		textBlank = true;
+		pending = 0;
+	}
+
+	private void finish() {
+		if (pending > 0) {
+			pending = 0;
+			accept('\uFFFD');
+		}
+		if (state == LESS_THAN) {
+			appendText('<');
+			state = TEXT;
+		}
+		if (state == TEXT) {
+			flushText();
+		}
+	}
+
+	/**
+	 * Decodes one byte of UTF-8, and passes on the character it completes, if
+	 * any.
+	 */
+	private void decode(byte b) {
+		if (pending > 0) {
+			if ((b & 0xC0) == 0x80) {
+				codePoint = codePoint << 6 | b & 0x3F;
+				if (--pending == 0) {
+					if (codePoint > Character.MAX_CODE_POINT) {
+						accept('\uFFFD');
+					} else if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+						// surrogate pair
+						accept((char) (0xD7C0 + (codePoint >>> 10)));
+						accept((char) (0xDC00 + (codePoint & 0x3FF)));
+					} else {
+						accept((char) codePoint);
+					}
+				}
+				return;
+			}
+			pending = 0;
+			accept('\uFFFD');
+		}
+		if (b >= 0) {
+			accept((char) b);
+		} else if ((b & 0xE0) == 0xC0) {
+			codePoint = b & 0x1F;
+			pending = 1;
+		} else if ((b & 0xF0) == 0xE0) {
+			codePoint = b & 0x0F;
+			pending = 2;
+		} else if ((b & 0xF8) == 0xF0) {
+			codePoint = b & 0x07;
+			pending = 3;
+		} else {
+			accept('\uFFFD');
+		}
+	}
+
+	/**
+	 * Advances the state machine by one character.
+	 */
+	private void accept(char c) {
+		switch (state) {
+		case TEXT:
+			if (c == '<') {
+				state = LESS_THAN;
+			} else if (c == '\n' || c == '\r') {
+				flushText();
+			} else {
+				appendText(c);
+			}
+			break;
+		case LESS_THAN:
+			if (c == '/') {
+				flushText();
+				nameLength = 0;
+				state = END_NAME;
+			} else if (c == '!') {
+				flushText();
+				state = BANG;
+			} else if (c == '?') {
+				flushText();
+				state = DECLARATION;
+			} else if (Character.isLetter(c)) {
+				flushText();
+				nameLength = 0;
+				appendName(c);
+				state = START_NAME;
+			} else {
+				appendText('<');
+				state = TEXT;
+				accept(c);
+			}
+			break;
+		case START_NAME:
+			if (c == '>') {
+				startTag(false);
+			} else if (c == '/' || Character.isWhitespace(c)) {
+				quote = 0;
+				slash = c == '/';
+				state = ATTRIBUTES;
+			} else {
+				appendName(c);
+			}
+			break;
+		case ATTRIBUTES:
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '>') {
+				startTag(slash);
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+				slash = false;
+			} else if (!Character.isWhitespace(c)) {
+				slash = c == '/';
+			}
+			break;
+		case END_NAME:
+			if (c == '>') {
+				endTag();
+			} else if (Character.isWhitespace(c)) {
+				state = END_REST;
+			} else {
+				appendName(c);
+			}
+			break;
+		case END_REST:
+			if (c == '>') {
+				endTag();
+			}
+			break;
+		case BANG:
+			state = c == '-' ? BANG_DASH : DECLARATION;
+			if (c == '>') {
+				state = TEXT;
+			}
+			break;
+		case BANG_DASH:
+			dashes = 0;
+			state = c == '-' ? COMMENT : DECLARATION;
+			if (c == '>') {
+				state = TEXT;
+			}
+			break;
+		case COMMENT:
+			if (c == '>' && dashes >= 2) {
+				state = TEXT;
+			} else {
+				dashes = c == '-' ? dashes + 1 : 0;
+			}
+			break;
+		default:
+			if (c == '>') {
+				state = TEXT;
+			}
+			break;
+		}
+	}
+
+	private void appendText(char c) {
+		if (textLength == text.length) {
+			char[] grown = new char[2 * text.length];
+			System.arraycopy(text, 0, grown, 0, textLength);
+			text = grown;
+		}
+		text[textLength++] = c;
+		if (textBlank && !Character.isWhitespace(c)) {
+			textBlank = false;
+		}
+	}
+
+	private void flushText() {
+		if (!textBlank) {
+			handler.text(text, 0, textLength);
+		}
+		textLength = 0;
+		textBlank = true;
+	}
+
+	private void appendName(char c) {
+		if (nameLength == name.length) {
+			char[] grown = new char[2 * name.length];
+			System.arraycopy(name, 0, grown, 0, nameLength);
+			name = grown;
+		}
+		name[nameLength++] = c;
+	}
+
+	private void startTag(boolean selfClosing) {
+		state = TEXT;
+		String tag = lookup();
+		handler.startTag(tag);
+		if (selfClosing || isVoid(tag)) {
+			handler.endTag(tag);
+		}
+	}
+
+	private void endTag() {
+		state = TEXT;
+		handler.endTag(lookup());
+	}
+
+	private boolean isVoid(String tag) {
+		for (int i = 0; i < VOID_TAGS.length; i++) {
+			if (VOID_TAGS[i] == tag) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the String for the current tag name, from the table of names if
+	 * it is there, and adds it to the table otherwise.
+	 */
+	private String lookup() {
+		int hash = 0;
+		for (int i = 0; i < nameLength; i++) {
+			hash = 31 * hash + name[i];
+		}
+		int mask = names.length - 1;
+		int slot = hash * 0x9E3779B9 >>> 16 & mask;
+		for (String known; (known = names[slot]) != null; slot = slot + 1 & mask) {
+			if (known.length() == nameLength && matches(known)) {
+				return known;
+			}
+		}
+		String tag = new String(name, 0, nameLength);
+		if (nameCount < MAX_NAMES) {
+			insert(tag);
+		}
+		return tag;
+	}
+
+	private boolean matches(String known) {
+		for (int i = 0; i < nameLength; i++) {
+			if (known.charAt(i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void insert(String tag) {
+		int mask = names.length - 1;
+		int slot = tag.hashCode() * 0x9E3779B9 >>> 16 & mask;
+		while (names[slot] != null) {
+			slot = slot + 1 & mask;
+		}
+		names[slot] = tag;
+		if (++nameCount * 2 > names.length) {
+			String[] old = names;
+			names = new String[2 * old.length];
+			nameCount = 0;
+			for (int i = 0; i < old.length; i++) {
+				if (old[i] != null) {
+					insert(old[i]);
+				}
+			}
+		}
+	}
+}
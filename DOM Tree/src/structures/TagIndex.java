@@ -0,0 +1,242 @@
+package structures;
+
+import java.util.HashMap;
+
+/**
+ * This class interns tag names to small int ids, and maps each id to the tag
+ * nodes of a tree that carry it, so that the nodes with a given tag are found
+ * without walking the tree.
+ *
+ * Each indexed node holds its id in tagId and its position in the list of its
+ * id in slot, so that a node is removed from the index in constant time. Text
+ * nodes have the id TEXT and are not indexed.
+ *
+ */
+class TagIndex {
+
+	/**
+	 * Id of text nodes.
+	 */
+	static final int TEXT = -1;
+
+	/**
+	 * Returned by find for a name that was never interned.
+	 */
+	static final int NONE = -2;
+
+	/**
+	 * Id of nodes that were taken out of the tree.
+	 */
+	static final int REMOVED = -3;
+
+	/**
+	 * Ids of the interned names.
+	 */
+	private HashMap<String, Integer> ids = new HashMap<String, Integer>();
+
+	/**
+	 * Interned names, by id.
+	 */
+	private String[] names = new String[16];
+
+	/**
+	 * Nodes carrying each id, in no particular order, and their numbers.
+	 */
+	private TagNode[][] nodes = new TagNode[16][];
+	private int[] counts = new int[16];
+
+	/**
+	 * Returns the id of a tag name, interning it if it is new.
+	 *
+	 * @param name Tag name
+	 * @return Id of the name, 0 or more
+	 */
+	int intern(String name) {
+		Integer id = ids.get(name);
+		if (id != null) {
+			return id;
+		}
+		int next = ids.size();
+		if (next == names.length) {
+			names = grow(names, 2 * next);
+			TagNode[][] grownNodes = new TagNode[2 * next][];
+			System.arraycopy(nodes, 0, grownNodes, 0, next);
+			nodes = grownNodes;
+			int[] grownCounts = new int[2 * next];
+			System.arraycopy(counts, 0, grownCounts, 0, next);
+			counts = grownCounts;
+		}
+		names[next] = name;
+		ids.put(name, next);
+		return next;
+	}
+
+	/**
+	 * Returns the id of a tag name, without interning it.
+	 *
+	 * @param name Tag name
+	 * @return Id of the name, or NONE if it was never interned
+	 */
+	int find(String name) {
+		Integer id = ids.get(name);
+		return id == null ? NONE : id;
+	}
+
+	/**
+	 * Returns the number of interned names; their ids are 0 to size() - 1.
+	 *
+	 * @return Number of names
+	 */
+	int size() {
+		return ids.size();
+	}
+
+	/**
+	 * Returns the name of an id.
+	 *
+	 * @param id Id
+	 * @return Interned name
+	 */
+	String name(int id) {
+		return names[id];
+	}
+
+	/**
+	 * Returns the number of nodes that carry an id.
+	 *
+	 * @param id Id, or NONE
+	 * @return Number of nodes
+	 */
+	int count(int id) {
+		return id < 0 ? 0 : counts[id];
+	}
+
+	/**
+	 * Returns one of the nodes that carry an id.
+	 *
+	 * @param id Id
+	 * @param i  Index of the node, from 0 to count(id) - 1
+	 * @return Node
+	 */
+	TagNode get(int id, int i) {
+		return nodes[id][i];
+	}
+
+	/**
+	 * Returns a copy of the list of the nodes that carry an id.
+	 *
+	 * @param id Id, or NONE
+	 * @return Nodes, in no particular order
+	 */
+	TagNode[] nodes(int id) {
+		TagNode[] copy = new TagNode[count(id)];
+		if (copy.length > 0) {
+			System.arraycopy(nodes[id], 0, copy, 0, copy.length);
+		}
+		return copy;
+	}
+
+	/**
+	 * Adds a node to the list of its id, node.tagId, which must not be TEXT.
+	 *
+	 * @param node Node
+	 */
+	void add(TagNode node) {
+		int id = node.tagId;
+		TagNode[] list = nodes[id];
+		if (list == null) {
+			list = nodes[id] = new TagNode[4];
+		} else if (counts[id] == list.length) {
+			list = nodes[id] = grow(list, 2 * list.length);
+		}
+		node.slot = counts[id];
+		list[counts[id]++] = node;
+	}
+
+	/**
+	 * Removes a node from the list of its id.
+	 *
+	 * @param node Node, which must be in the index
+	 */
+	void remove(TagNode node) {
+		int id = node.tagId;
+		TagNode[] list = nodes[id];
+		TagNode last = list[--counts[id]];
+		list[node.slot] = last;
+		last.slot = node.slot;
+		list[counts[id]] = null;
+	}
+
+	/**
+	 * Moves all the nodes that carry an id to another id, and sets their tag and
+	 * tagId accordingly, in parallel for long lists.
+	 *
+	 * @param from Id of the nodes to move
+	 * @param to   Id they get
+	 */
+	void rename(int from, int to) {
+		if (from == to) {
+			return;
+		}
+		TagNode[] list = nodes[from];
+		int count = counts[from];
+		Chunks.run(count, new Rename(list, names[to], to));
+		if (counts[to] == 0) {
+			// take over the list as it is
+			nodes[from] = nodes[to];
+			nodes[to] = list;
+			counts[to] = count;
+		} else {
+			for (int i = 0; i < count; i++) {
+				add(list[i]);
+			}
+			nodes[from] = null;
+		}
+		counts[from] = 0;
+	}
+
+	/**
+	 * Removes all the nodes that carry an id from the index.
+	 *
+	 * @param id Id
+	 */
+	void clear(int id) {
+		nodes[id] = null;
+		counts[id] = 0;
+	}
+
+	/**
+	 * Sets the tag and tagId of a range of nodes.
+	 */
+	private static class Rename implements Chunks.Body {
+
+		final TagNode[] list;
+		final String name;
+		final int id;
+
+		Rename(TagNode[] list, String name, int id) {
+			this.list = list;
+			this.name = name;
+			this.id = id;
+		}
+
+		public void run(int from, int to) {
+			for (int i = from; i < to; i++) {
+				list[i].tag = name;
+				list[i].tagId = id;
+			}
+		}
+	}
+
+	private static String[] grow(String[] array, int length) {
+		String[] grown = new String[length];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static TagNode[] grow(TagNode[] array, int length) {
+		TagNode[] grown = new TagNode[length];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+}
@@ -23,6 +23,27 @@ public class TagNode {
 	 * Sibling of this node
 	 */
 	TagNode sibling;
+
+	/**
+	 * Id of the tag in the TagIndex of the tree, or TagIndex.TEXT for text
+	 */
+	int tagId = TagIndex.TEXT;
+
+	/**
+	 * Parent of this node, null at the top level of the tree
+	 */
+	TagNode parent;
+
+	/**
+	 * Node whose sibling this node is, null for a first child
+	 */
+	TagNode prev;
+
+	/**
+	 * Position of this node in the TagIndex list of its tag; for a text node, 0
+	 * except while Tree.apply groups the words found in it
+	 */
+	int slot;
 	
 	/**
 	 * Initializes this tag node with tag/txt, first child, and sibling
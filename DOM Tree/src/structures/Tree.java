@@ -1,5 +1,8 @@
 package structures;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.*;
 
 /**
@@ -19,6 +22,16 @@ public class Tree {
 	 */
 	Scanner sc;
 
+	/**
+	 * Tag names of this tree and the tag nodes that carry them
+	 */
+	TagIndex index = new TagIndex();
+
+	/**
+	 * Words of the text nodes of this tree
+	 */
+	WordIndex words = new WordIndex();
+
 	/**
 	 * Initializes this tree object with scanner for input HTML file
 	 * 
@@ -29,33 +42,106 @@ public class Tree {
 		root = null;
 	}
 
-	private void addChild(TagNode parent, TagNode node) {
-		TagNode headNode = new TagNode(null, null, parent.firstChild);
-		TagNode currNode = headNode;
+	/**
+	 * Initializes this tree object without a scanner, for a tree to be built
+	 * with build(ReadableByteChannel) or build(File)
+	 */
+	public Tree() {
+		this(null);
+	}
 
-		while (currNode.sibling != null)
-			currNode = currNode.sibling;
+	/**
+	 * Appends nodes to a tree in document order. Open tags are kept on an
+	 * explicit stack, with the last child of each, so that nodes are appended in
+	 * constant time and the depth of the Java call stack does not depend on the
+	 * input.
+	 */
+	private static class Builder implements HtmlHandler {
+
+		TagIndex index;
+		WordIndex words;
+		TagNode tmpRoot;
+		TagNode parent;
+		TagNode tail;
+		Stack<TagNode> parents = new Stack<TagNode>();
+		Stack<TagNode> tails = new Stack<TagNode>();
+
+		/**
+		 * Initializes this builder to append after the given nodes
+		 * 
+		 * @param root First node of the top level, or null
+		 * @param index Index of the tags of the tree
+		 * @param words Index of the words of the tree
+		 */
+		Builder(TagNode root, TagIndex index, WordIndex words) {
+			this.index = index;
+			this.words = words;
+			tmpRoot = new TagNode("root", root, null);
+			parent = tmpRoot;
+			tail = root;
+
+			if (tail != null)
+				while (tail.sibling != null)
+					tail = tail.sibling;
+		}
 
-		currNode.sibling = node;
-		parent.firstChild = headNode.sibling;
-	}
+		void append(TagNode node) {
+			if (tail == null)
+				parent.firstChild = node;
+			else
+				tail.sibling = node;
+			node.parent = parent == tmpRoot ? null : parent;
+			node.prev = tail;
+			tail = node;
+		}
 
-	private TagNode build(TagNode parent) {
-		if (!this.sc.hasNext())
-			return parent;
+		void open(String tag) {
+			int id = index.intern(tag);
+			TagNode node = new TagNode(index.name(id), null, null);
+			node.tagId = id;
+			index.add(node);
+			append(node);
+			parents.push(parent);
+			tails.push(tail);
+			parent = node;
+			tail = null;
+		}
 
-		String line = this.sc.nextLine();
-		if (line.charAt(0) == '<') {
-			if (line.charAt(1) == '/')
-				return parent;
+		void text(String text) {
+			TagNode node = new TagNode(text, null, null);
+			append(node);
+			words.add(node);
+		}
 
-			String tagName = line.substring(1, line.length() - 1);
-			addChild(parent, build(new TagNode(tagName, null, null)));
-		} else {
-			addChild(parent, new TagNode(line, null, null));
+		/**
+		 * Closes the innermost open tag
+		 * 
+		 * @return False if no tag was open
+		 */
+		boolean close() {
+			if (parents.isEmpty())
+				return false;
+
+			tail = tails.pop();
+			parent = parents.pop();
+			return true;
+		}
+
+		TagNode root() {
+			return tmpRoot.firstChild;
 		}
 
-		return build(parent);
+		public void startTag(String tag) {
+			open(tag);
+		}
+
+		public void endTag(String tag) {
+			close();
+		}
+
+		public void text(char[] chars, int start, int length) {
+			text(new String(chars, start, length));
+		}
 	}
 
 	/**
@@ -64,59 +150,110 @@ public class Tree {
 	 * 
 	 * The root of the tree that is built is referenced by the root field of this
 	 * object.
+	 * 
+	 * The tree is built in a single pass over the input, in time linear in the
+	 * number of lines.
 	 */
 	public void build() {
-		TagNode tmpRoot = new TagNode("root", root, null);
-		this.root = build(tmpRoot).firstChild;
-	}
-
-	private TagNode replaceTag(TagNode parent, String oldTag, String newTag, int maxDepth) {
-		if (parent == null)
-			return null;
+		Builder builder = new Builder(root, index, words);
 
-		if (maxDepth <= 0)
-			return parent;
+		while (this.sc.hasNext()) {
+			String line = this.sc.nextLine();
 
-		if (parent.tag.equals(oldTag))
-			parent.tag = newTag;
+			if (line.charAt(0) == '<') {
+				if (line.charAt(1) == '/') {
+					if (!builder.close())
+						break;
+				} else {
+					builder.open(line.substring(1, line.length() - 1));
+				}
+			} else {
+				builder.text(line);
+			}
+		}
 
-		parent.firstChild = replaceTag(parent.firstChild, oldTag, newTag, maxDepth - 1);
-		parent.sibling = replaceTag(parent.sibling, oldTag, newTag, maxDepth);
+		this.root = builder.root();
+	}
 
-		return parent;
+	/**
+	 * Builds the DOM tree from HTML read from a channel with an HtmlTokenizer, so
+	 * that tags and text need not be on lines of their own (see HtmlTokenizer).
+	 * An input with one tag or text item per line gives the same tree as
+	 * build(). End tags are matched by nesting only, whatever their name, and
+	 * an end tag with no tag open is skipped.
+	 * 
+	 * @param channel Channel to read, which is not closed
+	 * @throws IOException If the channel cannot be read
+	 */
+	public void build(ReadableByteChannel channel) throws IOException {
+		Builder builder = new Builder(root, index, words);
+		new HtmlTokenizer(builder).parse(channel);
+		this.root = builder.root();
 	}
 
-	private TagNode replaceTag(TagNode parent, String oldTag, String newTag) {
-		return replaceTag(parent, oldTag, newTag, Integer.MAX_VALUE);
+	/**
+	 * Builds the DOM tree from an HTML file, which is memory-mapped and read with
+	 * an HtmlTokenizer, as in build(ReadableByteChannel).
+	 * 
+	 * @param file File to read
+	 * @throws IOException If the file cannot be read
+	 */
+	public void build(File file) throws IOException {
+		Builder builder = new Builder(root, index, words);
+		new HtmlTokenizer(builder).parse(file);
+		this.root = builder.root();
 	}
 
 	/**
-	 * Replaces all occurrences of an old tag in the DOM tree with a new tag
+	 * Replaces all occurrences of an old tag in the DOM tree with a new tag. Only
+	 * the nodes with the old tag are visited, through the tag index.
 	 * 
 	 * @param oldTag Old tag
 	 * @param newTag Replacement tag
 	 */
 	public void replaceTag(String oldTag, String newTag) {
-		TagNode tmpRoot = new TagNode("root", root, null);
-		this.root = replaceTag(tmpRoot, oldTag, newTag).firstChild;
-	}
+		int from = index.find(oldTag);
 
-	private TagNode findTag(TagNode node, String tag) {
-		if (node == null)
-			return null;
+		if (index.count(from) == 0)
+			return;
 
-		if (node.tag.equals(tag))
-			return node;
+		index.rename(from, index.intern(newTag));
+	}
 
-		TagNode childTag = findTag(node.firstChild, tag);
+	/**
+	 * Returns the first node with the given tag in document order. The tag index
+	 * answers when there is at most one such node; otherwise the tree is walked
+	 * in document order up to the first one.
+	 * 
+	 * @param tag Tag to find
+	 * @return First node with the tag, or null if there is none
+	 */
+	private TagNode findTag(String tag) {
+		int id = index.find(tag);
+		int count = index.count(id);
 
-		if (childTag != null)
-			return childTag;
+		if (count == 0)
+			return null;
 
-		TagNode siblingTag = findTag(node.sibling, tag);
+		if (count == 1)
+			return index.get(id, 0);
 
-		if (siblingTag != null)
-			return siblingTag;
+		Stack<TagNode> siblings = new Stack<TagNode>();
+		TagNode ptr = root;
+		while (ptr != null) {
+			if (ptr.tagId == id)
+				return ptr;
+
+			if (ptr.firstChild != null) {
+				if (ptr.sibling != null)
+					siblings.push(ptr.sibling);
+				ptr = ptr.firstChild;
+			} else if (ptr.sibling != null) {
+				ptr = ptr.sibling;
+			} else {
+				ptr = siblings.isEmpty() ? null : siblings.pop();
+			}
+		}
 
 		return null;
 	}
@@ -129,9 +266,8 @@ public class Tree {
 	 * @param row Row to bold, first row is numbered 1 (not 0).
 	 */
 	public void boldRow(int row) {
-		// Can do it recursively.
 		row -= 1;
-		TagNode table = findTag(root, "table");
+		TagNode table = findTag("table");
 
 		if (table == null)
 			return;
@@ -144,9 +280,16 @@ public class Tree {
 			trs = trs.sibling;
 		}
 
+		int b = index.intern("b");
 		TagNode tds = trs.firstChild;
 		while (tds != null) {
-			tds.firstChild = new TagNode("b", tds.firstChild, null);
+			TagNode bold = new TagNode(index.name(b), tds.firstChild, null);
+			bold.tagId = b;
+			bold.parent = tds;
+			index.add(bold);
+			for (TagNode ptr = bold.firstChild; ptr != null; ptr = ptr.sibling)
+				ptr.parent = bold;
+			tds.firstChild = bold;
 			tds = tds.sibling;
 		}
 	}
@@ -157,95 +300,387 @@ public class Tree {
 	 * occurrences of such a tag are removed from the tree, and, in addition, all
 	 * the li tags immediately under the removed tag are converted to p tags.
 	 * 
+	 * Each removed node is replaced by its children, in place. Only the nodes
+	 * with the tag and their children are visited, through the tag index.
+	 * 
 	 * @param tag Tag to be removed, can be p, em, b, ol, or ul
 	 */
 	public void removeTag(String tag) {
-		TagNode tmpRoot = new TagNode("root", root, null);
-		this.root = removeTag(tmpRoot, tag).firstChild;
+		int id = index.find(tag);
+		int count = index.count(id);
+
+		if (count == 0)
+			return;
+
+		TagNode[] nodes = index.nodes(id);
+		index.clear(id);
+		unwrap(nodes, count);
 	}
 
-	public TagNode removeTag(TagNode parent, String removedTag) {
-		if (parent == null)
-			return null;
-		
-		if (parent.tag.equals(removedTag)) {
-			TagNode childNodes = removeTag(parent.firstChild, removedTag);
-			return insertAfter(childNodes, removeTag(parent.sibling, removedTag));
+	/**
+	 * Replaces tag nodes by their children, in place, and marks them removed.
+	 * The nodes must be taken out of the tag index by the caller.
+	 * 
+	 * This runs on one thread: splitting the work as replaceTag and addTag do
+	 * needs a pass to find the nearest ancestor that stays and a pass to unlink
+	 * the nodes outer first, and on 300000 p nodes that last pass alone took
+	 * longer than the whole of this loop.
+	 * 
+	 * @param nodes Nodes to remove
+	 * @param count Number of nodes
+	 */
+	private void unwrap(TagNode[] nodes, int count) {
+		for (int i = 0; i < count; i++) {
+			TagNode node = nodes[i];
+			TagNode last = null;
+
+			for (TagNode ptr = node.firstChild; ptr != null; ptr = ptr.sibling) {
+				ptr.parent = node.parent;
+				last = ptr;
+			}
+
+			splice(node, node.firstChild, last);
+			node.tagId = TagIndex.REMOVED;
+		}
+	}
+
+	/**
+	 * Replaces a node by a list of nodes whose parent fields, and prev fields
+	 * but that of the first, are already set, fixing the links around it
+	 * 
+	 * @param node  Node to replace
+	 * @param nodes First of the nodes that take its place, or null to unlink it
+	 * @param last  Last of the nodes that take its place
+	 */
+	private void splice(TagNode node, TagNode nodes, TagNode last) {
+		TagNode first = nodes != null ? nodes : node.sibling;
+
+		if (nodes != null) {
+			nodes.prev = node.prev;
+			last.sibling = node.sibling;
+		} else {
+			last = node.prev;
 		}
 
-		parent.firstChild = removeTag(parent.firstChild, removedTag);
-		parent.sibling = removeTag(parent.sibling, removedTag);
+		if (node.prev != null)
+			node.prev.sibling = first;
+		else if (node.parent != null)
+			node.parent.firstChild = first;
+		else
+			root = first;
 
-		return parent;
+		if (node.sibling != null)
+			node.sibling.prev = last;
 	}
 
 	/**
 	 * Adds a tag around all occurrences of a word in the DOM tree.
 	 * 
+	 * An occurrence is a run of characters between spaces or tabs of a text node
+	 * that is the word, ignoring case, possibly followed by one punctuation mark,
+	 * which goes inside the tag. The text nodes holding the word are found
+	 * through the word index, and each is split in one pass; the text keeps its
+	 * case.
+	 * 
 	 * @param word Word around which tag is to be added
 	 * @param tag  Tag to be added
 	 */
 	public void addTag(String word, String tag) {
-		TagNode tmpRoot = new TagNode("root", root, null);
-		addTag(tmpRoot, word, tag);
-		this.root = tmpRoot.firstChild;
+		WordIndex.Postings matches = words.find(word);
+
+		if (matches.count == 0)
+			return;
+
+		int[] ids = new int[matches.count];
+		Arrays.fill(ids, index.intern(tag));
+		wrap(matches, ids);
 	}
 
-	private TagNode constructTag(String text, String word, String tag) {
-		StringTokenizer st = new StringTokenizer(text, "\t ", true);
-		String out = "";
-		TagNode head = new TagNode(null, null, null);
-		TagNode ptr = head;
+	/**
+	 * Puts words of text nodes under new tag nodes, splitting each text node once.
+	 * The text nodes are split in parallel for many nodes; the new nodes are then
+	 * linked in their place and indexed one text node at a time.
+	 * 
+	 * @param matches Words, grouped by text node, in increasing order of offsets
+	 *                in each
+	 * @param ids     Id of the tag of each word
+	 */
+	private void wrap(WordIndex.Postings matches, int[] ids) {
+		int[] starts = new int[matches.count + 1];
+		int groups = 0;
+		for (int i = 0; i < matches.count; i++)
+			if (i == 0 || matches.nodes[i] != matches.nodes[i - 1])
+				starts[groups++] = i;
+		starts[groups] = matches.count;
+
+		TagNode[] firsts = new TagNode[groups];
+		TagNode[] lasts = new TagNode[groups];
+		Chunks.run(groups, new Split(matches, ids, starts, firsts, lasts));
+
+		for (int g = 0; g < groups; g++) {
+			TagNode node = matches.nodes[starts[g]];
+			splice(node, firsts[g], lasts[g]);
+			node.tagId = TagIndex.REMOVED;
+			words.remove(node);
+
+			for (TagNode added = firsts[g];; added = added.sibling) {
+				if (added.tagId == TagIndex.TEXT) {
+					words.add(added);
+				} else {
+					index.add(added);
+					words.add(added.firstChild);
+				}
 
-		while (st.hasMoreTokens()) {
-			String tok = st.nextToken();
-			tok = tok.toLowerCase();
+				if (added == lasts[g])
+					break;
+			}
+		}
+	}
 
-			boolean beginsWith = tok.indexOf(word.toLowerCase()) == 0;
-			if (beginsWith && tok.length() == word.length()
-					|| beginsWith && tok.length() == word.length() + 1 && isPunc(tok.charAt(tok.length() - 1))) {
+	/**
+	 * Splits a range of the groups of words of wrap into the new nodes of their
+	 * text nodes, linked by their sibling and prev fields, with the parent of
+	 * the text node
+	 */
+	private class Split implements Chunks.Body {
+
+		final WordIndex.Postings matches;
+		final int[] ids;
+		final int[] starts;
+		final TagNode[] firsts;
+		final TagNode[] lasts;
+
+		Split(WordIndex.Postings matches, int[] ids, int[] starts, TagNode[] firsts, TagNode[] lasts) {
+			this.matches = matches;
+			this.ids = ids;
+			this.starts = starts;
+			this.firsts = firsts;
+			this.lasts = lasts;
+		}
 
-				if (out.length() > 0) {
-					ptr.sibling = new TagNode(out, null, null);
-					ptr = ptr.sibling;
-					out = "";
+		public void run(int from, int to) {
+			for (int g = from; g < to; g++) {
+				TagNode node = matches.nodes[starts[g]];
+				TagNode prev = null;
+				firsts[g] = split(node, matches.offsets, ids, starts[g], starts[g + 1]);
+				for (TagNode ptr = firsts[g]; ptr != null; prev = ptr, ptr = ptr.sibling) {
+					ptr.parent = node.parent;
+					ptr.prev = prev;
 				}
+				lasts[g] = prev;
+			}
+		}
+	}
 
-				TagNode tnWrap = new TagNode(tag, null, null);
-				tnWrap.firstChild = new TagNode(tok, null, null);
-				ptr.sibling = tnWrap;
-				ptr = ptr.sibling;
+	/**
+	 * Splits a text node around words, each of which is put under a new tag node.
+	 * The new nodes are linked by their sibling fields only, and are not indexed.
+	 * 
+	 * @param node    Text node
+	 * @param offsets Offsets of words in the text, in increasing order from
+	 *                index from to index to - 1
+	 * @param ids     Ids of the tags of the words, at the same indexes
+	 * @param from    Index of the first offset
+	 * @param to      Index past the last offset
+	 * @return First of the nodes that replace the text node
+	 */
+	private TagNode split(TagNode node, int[] offsets, int[] ids, int from, int to) {
+		String text = node.tag;
+		TagNode head = new TagNode(null, null, null);
+		TagNode ptr = head;
+		int pos = 0;
 
-			} else {
-				out += tok;
+		for (int i = from; i < to; i++) {
+			int offset = offsets[i];
+			int end = WordIndex.wordEnd(text, offset);
+
+			if (offset > pos) {
+				ptr.sibling = new TagNode(text.substring(pos, offset), null, null);
+				ptr = ptr.sibling;
 			}
+
+			TagNode wrap = new TagNode(index.name(ids[i]), null, null);
+			wrap.tagId = ids[i];
+			wrap.firstChild = new TagNode(text.substring(offset, end), null, null);
+			wrap.firstChild.parent = wrap;
+			ptr.sibling = wrap;
+			ptr = ptr.sibling;
+			pos = end;
 		}
 
-		if (out.length() > 0) {
-			ptr.sibling = new TagNode(out, null, null);
+		if (pos < text.length()) {
+			ptr.sibling = new TagNode(text.substring(pos), null, null);
 			ptr = ptr.sibling;
-			out = "";
 		}
 
 		return head.sibling;
 	}
 
-	private TagNode insertAfter(TagNode before, TagNode extension) {
-		if (extension == null && before == null)
-			return null;
+	/**
+	 * Applies a batch of transformations, with the same result as calling the
+	 * methods of this tree for each of them in order. The transformations of each
+	 * pass of the batch (see Batch) are carried out at once: each node whose tag
+	 * is replaced or removed is changed once, and each text node holding words
+	 * of its addTag is split once.
+	 *
+	 * @param batch Transformations to apply
+	 * @return Positions in the batch of the transformations that needed a pass
+	 *         of their own; each of the others was carried out in the pass of
+	 *         the one before it
+	 */
+	public int[] apply(Batch batch) {
+		int[] passes = batch.passes();
 
-		if (extension == null)
-			return before;
+		for (int p = 0; p < passes.length; p++) {
+			int from = passes[p];
+			int to = p + 1 < passes.length ? passes[p + 1] : batch.size();
+			Batch.Op op = batch.ops.get(from);
 
-		if (before == null)
-			return extension;
+			if (op.kind == Batch.BOLD) {
+				boldRow(op.row);
+			} else {
+				retag(batch, from, to);
+				addTags(batch, from, to);
+			}
+		}
 
-		before.sibling = insertAfter(before.sibling, extension);
-		return before;
+		return passes;
 	}
 
-	private boolean isPunc(char a) {
-		return a == ',' || a == '!' || a == '.' || a == '?' || a == ';';
+	/**
+	 * Carries out the replaceTag and removeTag of a pass, composed into one
+	 * mapping of tag ids
+	 */
+	private void retag(Batch batch, int from, int to) {
+		boolean any = false;
+		for (int i = from; i < to; i++) {
+			Batch.Op op = batch.ops.get(i);
+			if (op.kind == Batch.REPLACE)
+				index.intern(op.second);
+			any |= op.kind != Batch.ADD;
+		}
+
+		if (!any)
+			return;
+
+		int[] map = new int[index.size()];
+		for (int id = 0; id < map.length; id++)
+			map[id] = id;
+
+		for (int i = from; i < to; i++) {
+			Batch.Op op = batch.ops.get(i);
+			int old = index.find(op.first);
+
+			if (op.kind == Batch.ADD || old == TagIndex.NONE)
+				continue;
+
+			int target = op.kind == Batch.REPLACE ? index.find(op.second) : TagIndex.REMOVED;
+			for (int id = 0; id < map.length; id++)
+				if (map[id] == old)
+					map[id] = target;
+		}
+
+		// every list is taken out before any node is moved to another one
+		TagNode[][] nodes = new TagNode[map.length][];
+		for (int id = 0; id < map.length; id++) {
+			if (map[id] != id && index.count(id) > 0) {
+				nodes[id] = index.nodes(id);
+				index.clear(id);
+			}
+		}
+
+		int removed = 0;
+		for (int id = 0; id < map.length; id++)
+			if (nodes[id] != null && map[id] == TagIndex.REMOVED)
+				removed += nodes[id].length;
+
+		TagNode[] unwrapped = new TagNode[removed];
+		removed = 0;
+		for (int id = 0; id < map.length; id++) {
+			if (nodes[id] == null)
+				continue;
+
+			for (TagNode node : nodes[id]) {
+				if (map[id] == TagIndex.REMOVED) {
+					unwrapped[removed++] = node;
+				} else {
+					node.tag = index.name(map[id]);
+					node.tagId = map[id];
+					index.add(node);
+				}
+			}
+		}
+
+		unwrap(unwrapped, removed);
+	}
+
+	/**
+	 * Carries out the addTag of a pass, whose words never match the same text,
+	 * splitting each text node once
+	 */
+	private void addTags(Batch batch, int from, int to) {
+		ArrayList<WordIndex.Postings> found = new ArrayList<WordIndex.Postings>();
+		ArrayList<Integer> tagIds = new ArrayList<Integer>();
+		int total = 0;
+
+		for (int i = from; i < to; i++) {
+			Batch.Op op = batch.ops.get(i);
+			if (op.kind != Batch.ADD)
+				continue;
+
+			WordIndex.Postings matches = words.find(op.first);
+			if (matches.count > 0) {
+				found.add(matches);
+				tagIds.add(index.intern(op.second));
+				total += matches.count;
+			}
+		}
+
+		if (total == 0)
+			return;
+
+		// group the words of all the addTag by text node, numbered from 1 in slot
+		int groups = 0;
+		for (WordIndex.Postings matches : found)
+			for (int i = 0; i < matches.count; i++)
+				if (matches.nodes[i].slot == 0)
+					matches.nodes[i].slot = ++groups;
+
+		int[] next = new int[groups + 1];
+		for (WordIndex.Postings matches : found)
+			for (int i = 0; i < matches.count; i++)
+				next[matches.nodes[i].slot]++;
+		for (int g = 1; g < next.length; g++)
+			next[g] += next[g - 1];
+		int[] starts = next.clone();
+
+		WordIndex.Postings merged = new WordIndex.Postings();
+		merged.nodes = new TagNode[total];
+		merged.offsets = new int[total];
+		merged.count = total;
+		int[] ids = new int[total];
+		for (int k = 0; k < found.size(); k++) {
+			WordIndex.Postings matches = found.get(k);
+			for (int i = 0; i < matches.count; i++) {
+				int g = matches.nodes[i].slot - 1;
+				int at = next[g]++;
+
+				// insert in order of offsets among the words of the node so far
+				for (; at > starts[g] && merged.offsets[at - 1] > matches.offsets[i]; at--) {
+					merged.nodes[at] = merged.nodes[at - 1];
+					merged.offsets[at] = merged.offsets[at - 1];
+					ids[at] = ids[at - 1];
+				}
+				merged.nodes[at] = matches.nodes[i];
+				merged.offsets[at] = matches.offsets[i];
+				ids[at] = tagIds.get(k);
+			}
+		}
+
+		for (int i = 0; i < total; i++)
+			merged.nodes[i].slot = 0;
+
+		wrap(merged, ids);
 	}
 
 	private boolean isValidTag(String tag) {
@@ -258,22 +693,6 @@ public class Tree {
 		return false;
 	}
 
-	private TagNode addTag(TagNode parent, String word, String tag) {
-		if (parent == null)
-			return parent;
-
-		if (parent.firstChild == null) {
-			TagNode addedNode = constructTag(parent.tag, word, tag);
-			TagNode siblingNodes = addTag(parent.sibling, word, tag);
-			return insertAfter(addedNode, siblingNodes);
-		}
-
-		parent.firstChild = addTag(parent.firstChild, word, tag);
-		parent.sibling = addTag(parent.sibling, word, tag);
-
-		return parent;
-	}
-
 	/**
 	 * Gets the HTML represented by this DOM tree. The returned string includes new
 	 * lines, so that when it is printed, it will be identical to the input file
@@ -0,0 +1,300 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * This class implements an inverted index from the words of the text nodes of
+ * a tree to their occurrences, as (text node, offset) postings, so that the
+ * text nodes holding a word are found without walking the tree.
+ *
+ * Words are the runs of characters between spaces and tabs, as split by
+ * addTag. Each is indexed under its key: the word in lower case, without its
+ * last character if that is a punctuation mark (, ! . ? ;), so that "Word,"
+ * and "word" share a key. Keys are kept in an open addressed table, hashed
+ * and compared character by character straight from the text, so that
+ * indexing a word creates no String unless its key is new.
+ *
+ * Text nodes are never changed in place: addTag replaces them by new nodes,
+ * which are indexed, and marks the old ones with the id TagIndex.REMOVED.
+ * Postings of removed nodes are dropped when their key is next looked up, or
+ * once they make up half of the postings of their key, so that the text of
+ * replaced nodes does not stay reachable from keys that are never looked up.
+ *
+ */
+class WordIndex {
+
+	/**
+	 * Postings of one key, as parallel arrays.
+	 */
+	static class Postings {
+
+		TagNode[] nodes = new TagNode[2];
+		int[] offsets = new int[2];
+		int count;
+
+		/**
+		 * Number of postings of removed nodes, counted by remove.
+		 */
+		int removed;
+
+		void add(TagNode node, int offset) {
+			if (count == nodes.length) {
+				TagNode[] grownNodes = new TagNode[2 * count];
+				System.arraycopy(nodes, 0, grownNodes, 0, count);
+				nodes = grownNodes;
+				int[] grownOffsets = new int[2 * count];
+				System.arraycopy(offsets, 0, grownOffsets, 0, count);
+				offsets = grownOffsets;
+			}
+			nodes[count] = node;
+			offsets[count++] = offset;
+		}
+	}
+
+	/**
+	 * Keys, in lower case, and their postings, open addressed.
+	 */
+	private String[] keys = new String[1024];
+	private Postings[] lists = new Postings[1024];
+	private int size;
+
+	/**
+	 * Number of low bits dropped from hash codes to get a slot.
+	 */
+	private int shift = 22;
+
+	/**
+	 * Tells whether a character is one of the punctuation marks that may follow
+	 * a word matched by addTag.
+	 *
+	 * @param c Character
+	 * @return True for , ! . ? or ;
+	 */
+	static boolean isPunc(char c) {
+		return c == ',' || c == '!' || c == '.' || c == '?' || c == ';';
+	}
+
+	/**
+	 * Returns the offset just past the word that starts at an offset of a text.
+	 *
+	 * @param text   Text
+	 * @param offset Offset of the first character of the word
+	 * @return Offset of the space or tab after the word, or the length of text
+	 */
+	static int wordEnd(String text, int offset) {
+		int end = offset;
+		while (end < text.length() && text.charAt(end) != ' ' && text.charAt(end) != '\t')
+			end++;
+		return end;
+	}
+
+	/**
+	 * Returns the end of the key of the word from start to end of a text.
+	 */
+	private static int keyEnd(String text, int start, int end) {
+		return end > start && isPunc(text.charAt(end - 1)) ? end - 1 : end;
+	}
+
+	/**
+	 * Returns the postings of a key, given as a range of a text in any case.
+	 *
+	 * @param text   Text
+	 * @param start  Start of the key
+	 * @param end    End of the key
+	 * @param insert Whether to add the key if it is new
+	 * @return Postings, or null if the key is new and insert is false
+	 */
+	private Postings postings(String text, int start, int end, boolean insert) {
+		int hash = 0;
+		for (int i = start; i < end; i++)
+			hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+
+		int mask = keys.length - 1;
+		int slot = hash * 0x9E3779B9 >>> shift;
+		for (String key; (key = keys[slot]) != null; slot = slot + 1 & mask)
+			if (matches(key, text, start, end))
+				return lists[slot];
+
+		if (!insert)
+			return null;
+
+		char[] chars = new char[end - start];
+		for (int i = start; i < end; i++)
+			chars[i - start] = Character.toLowerCase(text.charAt(i));
+		Postings list = new Postings();
+		keys[slot] = new String(chars);
+		lists[slot] = list;
+		if (++size * 2 > keys.length)
+			rehash();
+		return list;
+	}
+
+	private static boolean matches(String key, String text, int start, int end) {
+		if (key.length() != end - start)
+			return false;
+		for (int i = start; i < end; i++)
+			if (key.charAt(i - start) != Character.toLowerCase(text.charAt(i)))
+				return false;
+		return true;
+	}
+
+	private void rehash() {
+		String[] oldKeys = keys;
+		Postings[] oldLists = lists;
+		keys = new String[2 * oldKeys.length];
+		lists = new Postings[2 * oldKeys.length];
+		shift--;
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int slot = oldKeys[i].hashCode() * 0x9E3779B9 >>> shift;
+				while (keys[slot] != null)
+					slot = slot + 1 & mask;
+				keys[slot] = oldKeys[i];
+				lists[slot] = oldLists[i];
+			}
+		}
+	}
+
+	/**
+	 * Indexes the words of a text node.
+	 *
+	 * @param node Text node
+	 */
+	void add(TagNode node) {
+		String text = node.tag;
+		int offset = 0;
+		while (offset < text.length()) {
+			char c = text.charAt(offset);
+			if (c == ' ' || c == '\t') {
+				offset++;
+				continue;
+			}
+			int end = wordEnd(text, offset);
+			postings(text, offset, keyEnd(text, offset, end), true).add(node, offset);
+			offset = end;
+		}
+	}
+
+	/**
+	 * Counts the postings of a text node that was marked with the id
+	 * TagIndex.REMOVED as dead, and drops the postings of removed nodes of each
+	 * of its keys where they make up half of the postings.
+	 *
+	 * @param node Removed text node
+	 */
+	void remove(TagNode node) {
+		String text = node.tag;
+		int offset = 0;
+		while (offset < text.length()) {
+			char c = text.charAt(offset);
+			if (c == ' ' || c == '\t') {
+				offset++;
+				continue;
+			}
+			int end = wordEnd(text, offset);
+			Postings list = postings(text, offset, keyEnd(text, offset, end), false);
+			if (list != null && ++list.removed * 2 >= list.count)
+				compact(list);
+			offset = end;
+		}
+	}
+
+	/**
+	 * Drops the postings of removed nodes from a list.
+	 */
+	private static void compact(Postings list) {
+		int kept = 0;
+		for (int i = 0; i < list.count; i++) {
+			if (list.nodes[i].tagId != TagIndex.REMOVED) {
+				list.nodes[kept] = list.nodes[i];
+				list.offsets[kept++] = list.offsets[i];
+			}
+		}
+		for (int i = kept; i < list.count; i++)
+			list.nodes[i] = null;
+		list.count = kept;
+		list.removed = 0;
+	}
+
+	/**
+	 * Finds the occurrences of a word in the text nodes of the tree, with the
+	 * matching rule of addTag: a word of a text matches if, in lower case, it
+	 * is the given word in lower case, possibly followed by one punctuation
+	 * mark. Only text nodes that are in the tree and have no children are
+	 * considered.
+	 *
+	 * @param word Word to find
+	 * @return Postings of the matching words, with those of each text node next
+	 *         to each other, in increasing order of offsets
+	 */
+	Postings find(String word) {
+		Postings matches = new Postings();
+		String lower = word.toLowerCase();
+		int keyEnd = keyEnd(word, 0, word.length());
+
+		// the postings of one key are grouped by node, as add indexes a node at once
+		find(lower, word.length(), postings(word, 0, word.length(), false), matches);
+		if (keyEnd == word.length())
+			return matches;
+
+		find(lower, word.length(), postings(word, 0, keyEnd, false), matches);
+		return group(matches);
+	}
+
+	private void find(String lower, int length, Postings list, Postings matches) {
+		if (list == null)
+			return;
+
+		int kept = 0;
+		for (int i = 0; i < list.count; i++) {
+			TagNode node = list.nodes[i];
+			int offset = list.offsets[i];
+			if (node.tagId == TagIndex.REMOVED)
+				continue;
+
+			list.nodes[kept] = node;
+			list.offsets[kept++] = offset;
+
+			if (node.firstChild != null)
+				continue;
+
+			String tok = node.tag.substring(offset, wordEnd(node.tag, offset)).toLowerCase();
+			boolean beginsWith = tok.startsWith(lower);
+			if (beginsWith && tok.length() == length
+					|| beginsWith && tok.length() == length + 1 && isPunc(tok.charAt(tok.length() - 1)))
+				matches.add(node, offset);
+		}
+		for (int i = kept; i < list.count; i++)
+			list.nodes[i] = null;
+		list.count = kept;
+		list.removed = 0;
+	}
+
+	/**
+	 * Returns postings grouped by node, with the offsets of each node in
+	 * increasing order.
+	 */
+	private static Postings group(Postings matches) {
+		IdentityHashMap<TagNode, ArrayList<Integer>> byNode = new IdentityHashMap<TagNode, ArrayList<Integer>>();
+		for (int i = 0; i < matches.count; i++) {
+			ArrayList<Integer> offsets = byNode.get(matches.nodes[i]);
+			if (offsets == null) {
+				offsets = new ArrayList<Integer>();
+				byNode.put(matches.nodes[i], offsets);
+			}
+			offsets.add(matches.offsets[i]);
+		}
+
+		Postings grouped = new Postings();
+		for (Map.Entry<TagNode, ArrayList<Integer>> entry : byNode.entrySet()) {
+			Collections.sort(entry.getValue());
+			for (int offset : entry.getValue())
+				grouped.add(entry.getKey(), offset);
+		}
+		return grouped;
+	}
+}
@@ -0,0 +1,58 @@
+package poly.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import poly.Node;
+import poly.Polynomial;
+
+/**
+ * Polynomial.add and Polynomial.multiply on two polynomials of the same shape
+ * and degree.
+ *
+ * @author runb-cs112
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArithmeticBenchmark {
+
+	@Param({ "100", "10000", "100000" })
+	int degree;
+
+	@Param({ "dense", "sparse" })
+	String shape;
+
+	Node poly1, poly2;
+
+	@Setup
+	public void setup() {
+		poly1 = PolynomialGenerator.generate(shape, degree, 1);
+		poly2 = PolynomialGenerator.generate(shape, degree, 2);
+	}
+
+	@Benchmark
+	public Node add() {
+		return Polynomial.add(poly1, poly2);
+	}
+
+	@Benchmark
+	public Node multiply() {
+		return Polynomial.multiply(poly1, poly2);
+	}
+}
@@ -0,0 +1,85 @@
+package poly.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import poly.CompiledPolynomial;
+import poly.Node;
+import poly.Polynomial;
+
+/**
+ * Evaluation at POINTS values in [-1, 1]: one Polynomial.evaluate call per
+ * value, Polynomial.evaluateAll, and a CompiledPolynomial compiled once.
+ *
+ * @author runb-cs112
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluateBenchmark {
+
+	/**
+	 * Number of values per operation.
+	 */
+	static final int POINTS = 1024;
+
+	@Param({ "3", "100", "10000" })
+	int degree;
+
+	@Param({ "dense", "sparse" })
+	String shape;
+
+	Node poly;
+
+	CompiledPolynomial compiled;
+
+	float[] xs, out;
+
+	@Setup
+	public void setup() {
+		poly = PolynomialGenerator.generate(shape, degree, 1);
+		compiled = Polynomial.compile(poly);
+		Random random = new Random(3);
+		xs = new float[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			xs[i] = 2 * random.nextFloat() - 1;
+		}
+		out = new float[POINTS];
+	}
+
+	@Benchmark
+	public float[] evaluate() {
+		for (int i = 0; i < POINTS; i++) {
+			out[i] = Polynomial.evaluate(poly, xs[i]);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public float[] evaluateAll() {
+		Polynomial.evaluateAll(poly, xs, out);
+		return out;
+	}
+
+	@Benchmark
+	public float[] compiled() {
+		compiled.evaluateAll(xs, out);
+		return out;
+	}
+}
@@ -0,0 +1,66 @@
+package poly.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import poly.Node;
+import poly.PolynomialMultiplier;
+
+/**
+ * PolynomialMultiplier.multiply and parallelMultiply on a polynomial of degree
+ * DEGREE times one of a lower degree, of the same shape. parallelMultiply runs
+ * in the common ForkJoinPool, so its scaling is measured by running this
+ * benchmark once per number of threads N, with the JMH option -jvmArgsAppend
+ * -Djava.util.concurrent.ForkJoinPool.common.parallelism=N.
+ *
+ * @author runb-cs112
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelMultiplyBenchmark {
+
+	/**
+	 * Degree of the longer polynomial.
+	 */
+	static final int DEGREE = 1000000;
+
+	@Param({ "600", "5000" })
+	int degree;
+
+	@Param({ "dense", "sparse" })
+	String shape;
+
+	Node poly1, poly2;
+
+	@Setup
+	public void setup() {
+		poly1 = PolynomialGenerator.generate(shape, DEGREE, 1);
+		poly2 = PolynomialGenerator.generate(shape, degree, 2);
+	}
+
+	@Benchmark
+	public Node multiply() {
+		return PolynomialMultiplier.multiply(poly1, poly2);
+	}
+
+	@Benchmark
+	public Node parallelMultiply() {
+		return PolynomialMultiplier.parallelMultiply(poly1, poly2, PolynomialMultiplier.PARALLEL_THRESHOLD);
+	}
+}
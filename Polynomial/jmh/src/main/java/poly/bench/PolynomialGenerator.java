@@ -0,0 +1,134 @@
+package poly.bench;
+
+import java.util.Random;
+
+import poly.Node;
+
+/**
+ * This class generates random polynomials for the benchmarks. Coefficients
+ * are multiples of 1/4 in [-10, 10], which are exact in float and print
+ * without rounding, so that text round trips are exact.
+ *
+ * @author runb-cs112
+ *
+ */
+public class PolynomialGenerator {
+
+	/**
+	 * Returns a dense polynomial, with one term per degree from 0 up.
+	 *
+	 * @param degree Highest degree
+	 * @param seed Seed of the random coefficients
+	 * @return Front of the polynomial linked list, in ascending order of degrees
+	 */
+	public static Node dense(int degree, long seed) {
+		return toNode(denseDegrees(degree), seed);
+	}
+
+	/**
+	 * Returns a sparse polynomial, with terms of distinct degrees chosen
+	 * uniformly from 0 up to the highest degree, which is always present.
+	 *
+	 * @param degree Highest degree
+	 * @param terms Number of terms, at most degree + 1
+	 * @param seed Seed of the random degrees and coefficients
+	 * @return Front of the polynomial linked list, in ascending order of degrees
+	 */
+	public static Node sparse(int degree, int terms, long seed) {
+		return toNode(sparseDegrees(degree, terms, seed), seed);
+	}
+
+	/**
+	 * Returns a polynomial of the given shape: "dense", or "sparse" with one
+	 * term per hundred degrees.
+	 *
+	 * @param shape Shape, "dense" or "sparse"
+	 * @param degree Highest degree
+	 * @param seed Seed
+	 * @return Front of the polynomial linked list
+	 */
+	public static Node generate(String shape, int degree, long seed) {
+		return toNode(degrees(shape, degree, seed), seed);
+	}
+
+	/**
+	 * Returns the polynomial generate(shape, degree, seed) in the text format of
+	 * Polynomial.read, with degrees in descending order.
+	 *
+	 * @param shape Shape, "dense" or "sparse"
+	 * @param degree Highest degree
+	 * @param seed Seed
+	 * @return One "coeff degree" line per term
+	 */
+	public static String text(String shape, int degree, long seed) {
+		int[] degrees = degrees(shape, degree, seed);
+		float[] coeffs = coeffs(degrees.length, seed);
+		StringBuilder sb = new StringBuilder();
+		for (int i = degrees.length - 1; i >= 0; i--) {
+			sb.append(coeffs[i]).append(' ').append(degrees[i]).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static int[] degrees(String shape, int degree, long seed) {
+		if (shape.equals("dense")) {
+			return denseDegrees(degree);
+		}
+		if (shape.equals("sparse")) {
+			return sparseDegrees(degree, Math.max(1, degree / 100), seed);
+		}
+		throw new IllegalArgumentException("unknown shape " + shape);
+	}
+
+	private static int[] denseDegrees(int degree) {
+		int[] degrees = new int[degree + 1];
+		for (int d = 0; d <= degree; d++) {
+			degrees[d] = d;
+		}
+		return degrees;
+	}
+
+	private static int[] sparseDegrees(int degree, int terms, long seed) {
+		if (terms < 1 || terms > degree + 1) {
+			throw new IllegalArgumentException(terms + " terms for degree " + degree);
+		}
+		Random random = new Random(~seed);
+		int[] degrees = new int[terms];
+		degrees[terms - 1] = degree;
+		// selection sampling of terms - 1 degrees out of [0, degree)
+		int needed = terms - 1;
+		for (int d = 0; d < degree && needed > 0; d++) {
+			if (random.nextInt(degree - d) < needed) {
+				degrees[terms - 1 - needed] = d;
+				needed--;
+			}
+		}
+		return degrees;
+	}
+
+	private static Node toNode(int[] degrees, long seed) {
+		float[] coeffs = coeffs(degrees.length, seed);
+		Node poly = null;
+		for (int i = degrees.length - 1; i >= 0; i--) {
+			poly = new Node(coeffs[i], degrees[i], poly);
+		}
+		return poly;
+	}
+
+	private static float[] coeffs(int n, long seed) {
+		Random random = new Random(seed);
+		float[] coeffs = new float[n];
+		for (int i = 0; i < n; i++) {
+			coeffs[i] = coeff(random);
+		}
+		return coeffs;
+	}
+
+	private static float coeff(Random random) {
+		float c;
+		do {
+			c = (random.nextInt(81) - 40) / 4f;
+		} while (c == 0);
+		return c;
+	}
+}
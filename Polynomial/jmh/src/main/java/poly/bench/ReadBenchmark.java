@@ -0,0 +1,65 @@
+package poly.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import poly.Node;
+import poly.Polynomial;
+import poly.PolynomialReader;
+
+/**
+ * Reading the text format, with Polynomial.read and with PolynomialReader.
+ *
+ * @author runb-cs112
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark {
+
+	@Param({ "1000", "100000" })
+	int degree;
+
+	@Param({ "dense", "sparse" })
+	String shape;
+
+	byte[] text;
+
+	@Setup
+	public void setup() {
+		text = PolynomialGenerator.text(shape, degree, 1).getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Benchmark
+	public Node scanner() throws IOException {
+		Scanner sc = new Scanner(new ByteArrayInputStream(text));
+		Node poly = Polynomial.read(sc);
+		sc.close();
+		return poly;
+	}
+
+	@Benchmark
+	public Node reader() throws IOException {
+		return PolynomialReader.read(Channels.newChannel(new ByteArrayInputStream(text)));
+	}
+}
@@ -0,0 +1,84 @@
+package poly.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import poly.Node;
+import poly.Polynomial;
+
+/**
+ * Polynomial.toString, and Polynomial.write to a Writer that discards its
+ * input, which measures formatting without building the String.
+ *
+ * @author runb-cs112
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToStringBenchmark {
+
+	@Param({ "100", "10000", "1000000" })
+	int degree;
+
+	@Param({ "dense", "sparse" })
+	String shape;
+
+	Node poly;
+
+	@Setup
+	public void setup() {
+		poly = PolynomialGenerator.generate(shape, degree, 1);
+	}
+
+	@Benchmark
+	public String toString_() {
+		return Polynomial.toString(poly);
+	}
+
+	@Benchmark
+	public void write(final Blackhole blackhole) throws IOException {
+		Polynomial.write(poly, new Writer() {
+			public void write(char[] cbuf, int off, int len) {
+				blackhole.consume(cbuf);
+			}
+
+			public void write(String str, int off, int len) {
+				blackhole.consume(str);
+			}
+
+			public Writer append(CharSequence csq) {
+				blackhole.consume(csq);
+				return this;
+			}
+
+			public Writer append(char c) {
+				blackhole.consume(c);
+				return this;
+			}
+
+			public void flush() {
+			}
+
+			public void close() {
+			}
+		});
+	}
+}
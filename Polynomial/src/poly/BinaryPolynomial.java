@@ -0,0 +1,298 @@
+package poly;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class implements a compact binary file format for polynomials, and
+ * read-only access to such files through a memory mapping.
+ *
+ * A file starts with a 16 byte header: the magic number MAGIC, a version byte,
+ * a kind byte (SPARSE or DENSE), two reserved zero bytes and the number of
+ * entries as a long. For the sparse kind, the entries are (int degree, float
+ * coeff) pairs in ascending order of degrees, as in a Node list; for the dense
+ * kind, they are the float coefficients of degrees 0, 1, 2, ... All values are
+ * little-endian.
+ *
+ * An instance wraps the mapped file and reads terms straight from it, so that
+ * opening a file costs the same whatever its size, and terms are only copied
+ * when converted to a Node list or a DensePolynomial.
+ *
+ * @author runb-cs112
+ *
+ */
+public class BinaryPolynomial {
+
+	/**
+	 * Magic number at the start of every file, "POLY" in ASCII.
+	 */
+	public static final int MAGIC = 0x504f4c59;
+
+	/**
+	 * Version of the format.
+	 */
+	public static final byte VERSION = 1;
+
+	/**
+	 * Kind of a file holding (degree, coeff) pairs.
+	 */
+	public static final byte SPARSE = 1;
+
+	/**
+	 * Kind of a file holding a block of coefficients indexed by degree.
+	 */
+	public static final byte DENSE = 2;
+
+	/**
+	 * Size of the header, in bytes.
+	 */
+	static final int HEADER_SIZE = 16;
+
+	/**
+	 * Size of the buffer used to write files.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Mapped file, positioned at 0, in little-endian order.
+	 */
+	final ByteBuffer buffer;
+
+	/**
+	 * Kind of the file, SPARSE or DENSE.
+	 */
+	final byte kind;
+
+	/**
+	 * Number of entries (terms or coefficients).
+	 */
+	final int size;
+
+	/**
+	 * Initializes this polynomial over a mapped file whose header is valid.
+	 */
+	private BinaryPolynomial(ByteBuffer buffer, byte kind, int size) {
+		this.buffer = buffer;
+		this.kind = kind;
+		this.size = size;
+	}
+
+	/**
+	 * Writes a polynomial to a file, as a dense block if it is dense (see
+	 * DensePolynomial.isDense) and as (degree, coeff) pairs otherwise. Terms with
+	 * zero coefficients are left out.
+	 *
+	 * @param poly Polynomial (front of linked list), in ascending order of degrees
+	 * @param path File to write, created or replaced
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void write(Node poly, Path path) throws IOException {
+		if (DensePolynomial.isDense(poly)) {
+			write(DensePolynomial.fromNode(poly), path);
+			return;
+		}
+
+		long count = 0;
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			if (ptr.term.coeff != 0) {
+				count++;
+			}
+		}
+
+		try (FileChannel channel = create(path)) {
+			ByteBuffer out = header(SPARSE, count);
+			for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+				if (ptr.term.coeff != 0) {
+					if (out.remaining() < 8) {
+						flush(channel, out);
+					}
+					out.putInt(ptr.term.degree);
+					out.putFloat(ptr.term.coeff);
+				}
+			}
+			flush(channel, out);
+		}
+	}
+
+	/**
+	 * Writes a polynomial to a file, as a dense block of coefficients.
+	 *
+	 * @param poly Polynomial
+	 * @param path File to write, created or replaced
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void write(DensePolynomial poly, Path path) throws IOException {
+		try (FileChannel channel = create(path)) {
+			ByteBuffer out = header(DENSE, poly.coeffs.length);
+			for (float c : poly.coeffs) {
+				if (out.remaining() < 4) {
+					flush(channel, out);
+				}
+				out.putFloat(c);
+			}
+			flush(channel, out);
+		}
+	}
+
+	private static FileChannel create(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+	}
+
+	private static ByteBuffer header(byte kind, long count) {
+		ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		out.putInt(MAGIC);
+		out.put(VERSION);
+		out.put(kind);
+		out.putShort((short) 0);
+		out.putLong(count);
+		return out;
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer out) throws IOException {
+		out.flip();
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+		out.clear();
+	}
+
+	/**
+	 * Maps a polynomial file in memory. The mapping stays valid after this
+	 * method returns, until the instance is garbage collected.
+	 *
+	 * @param path File to map
+	 * @return Polynomial reading its terms from the mapped file
+	 * @throws IOException If the file cannot be read, is not a polynomial file,
+	 *                     or is larger than 2 GB
+	 */
+	public static BinaryPolynomial map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER_SIZE) {
+				throw new IOException("not a polynomial file: " + path);
+			}
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("polynomial file too large to map: " + path);
+			}
+
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+				throw new IOException("not a polynomial file: " + path);
+			}
+			byte kind = buffer.get(5);
+			long count = buffer.getLong(8);
+			long expected = count * (kind == SPARSE ? 8 : 4) + HEADER_SIZE;
+			if (kind != SPARSE && kind != DENSE || count < 0 || expected != length) {
+				throw new IOException("corrupt polynomial file: " + path);
+			}
+			return new BinaryPolynomial(buffer, kind, (int) count);
+		}
+	}
+
+	/**
+	 * Tells whether the file holds a dense block of coefficients.
+	 *
+	 * @return True for a dense file, false for (degree, coeff) pairs
+	 */
+	public boolean isDense() {
+		return kind == DENSE;
+	}
+
+	/**
+	 * Returns the number of entries of the file: terms for a sparse file, and
+	 * coefficients (degree plus one) for a dense file.
+	 *
+	 * @return Number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the degree of an entry.
+	 *
+	 * @param i Index of the entry, in [0, size())
+	 * @return Degree of the entry
+	 */
+	public int degree(int i) {
+		return kind == DENSE ? i : buffer.getInt(HEADER_SIZE + 8 * i);
+	}
+
+	/**
+	 * Returns the coefficient of an entry.
+	 *
+	 * @param i Index of the entry, in [0, size())
+	 * @return Coefficient of the entry
+	 */
+	public float coeff(int i) {
+		return kind == DENSE ? buffer.getFloat(HEADER_SIZE + 4 * i) : buffer.getFloat(HEADER_SIZE + 8 * i + 4);
+	}
+
+	/**
+	 * Evaluates the polynomial at a given value, reading its terms from the
+	 * mapped file in descending order of degrees, with Horner's scheme.
+	 *
+	 * @param x Value at which evaluation is to be done
+	 * @return Value of the polynomial at x
+	 */
+	public float evaluate(float x) {
+		float value = 0;
+		if (kind == DENSE) {
+			for (int i = size - 1; i >= 0; i--) {
+				value = value * x + coeff(i);
+			}
+			return value;
+		}
+
+		int previous = 0;
+		for (int i = size - 1; i >= 0; i--) {
+			int degree = degree(i);
+			value = i == size - 1 ? coeff(i) : (float) Horner.multiplyByPower(value, x, previous - degree) + coeff(i);
+			previous = degree;
+		}
+		return size > 0 ? (float) Horner.multiplyByPower(value, x, previous) : 0;
+	}
+
+	/**
+	 * Copies the polynomial to a new linked list, in ascending order of degrees,
+	 * leaving out zero coefficients.
+	 *
+	 * @return Front of the new polynomial linked list, or null for zero
+	 */
+	public Node toNode() {
+		Node poly = null;
+		for (int i = size - 1; i >= 0; i--) {
+			float coeff = coeff(i);
+			if (coeff != 0) {
+				poly = new Node(coeff, degree(i), poly);
+			}
+		}
+		return poly;
+	}
+
+	/**
+	 * Copies the polynomial to dense form.
+	 *
+	 * @return Dense form of the polynomial
+	 */
+	public DensePolynomial toDense() {
+		if (kind == DENSE) {
+			float[] coeffs = new float[size];
+			ByteBuffer block = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			block.position(HEADER_SIZE);
+			block.asFloatBuffer().get(coeffs);
+			return DensePolynomial.wrap(coeffs);
+		}
+
+		float[] coeffs = new float[size == 0 ? 0 : degree(size - 1) + 1];
+		for (int i = 0; i < size; i++) {
+			coeffs[degree(i)] += coeff(i);
+		}
+		return DensePolynomial.wrap(coeffs);
+	}
+}
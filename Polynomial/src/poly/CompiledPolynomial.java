@@ -0,0 +1,265 @@
+package poly;
+
+/**
+ * This class implements an evaluator for a fixed polynomial, for programs that
+ * evaluate the same polynomial many times. Compiling a polynomial flattens its
+ * linked list once into final arrays in descending order of degrees, so that
+ * each evaluation is a Horner chain over an array instead of a walk over nodes
+ * with a call to Math.pow per term.
+ *
+ * compile picks one of three forms: for degrees up to UNROLLED_DEGREE, a class
+ * with the coefficients in final fields and the Horner chain written out;
+ * for dense polynomials, the coefficients of all degrees; for sparse ones, the
+ * coefficients of the terms and the degree gaps between consecutive terms,
+ * with powers x^gap computed by repeated squaring. Instances are immutable and
+ * may be shared between threads.
+ *
+ * @author runb-cs112
+ *
+ */
+public abstract class CompiledPolynomial {
+
+	/**
+	 * Highest degree for which the Horner chain is unrolled.
+	 */
+	public static final int UNROLLED_DEGREE = 4;
+
+	/**
+	 * Compiles a polynomial. Terms of equal degree are added up.
+	 *
+	 * @param poly Polynomial (front of linked list), in ascending order of degrees
+	 * @return Evaluator for the polynomial
+	 */
+	public static CompiledPolynomial compile(Node poly) {
+		int maxDegree = -1;
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			maxDegree = Math.max(maxDegree, ptr.term.degree);
+		}
+		if (maxDegree <= UNROLLED_DEGREE) {
+			float[] c = new float[UNROLLED_DEGREE + 1];
+			for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+				c[ptr.term.degree] += ptr.term.coeff;
+			}
+			switch (DensePolynomial.trimmedLength(c, c.length)) {
+			case 0:
+			case 1:
+				return new Constant(c[0]);
+			case 2:
+				return new Linear(c[0], c[1]);
+			case 3:
+				return new Quadratic(c[0], c[1], c[2]);
+			case 4:
+				return new Cubic(c[0], c[1], c[2], c[3]);
+			default:
+				return new Quartic(c[0], c[1], c[2], c[3], c[4]);
+			}
+		}
+		if (DensePolynomial.isDense(poly)) {
+			return new Dense(DensePolynomial.fromNode(poly).coeffs);
+		}
+		return new Sparse(poly);
+	}
+
+	/**
+	 * Evaluates the polynomial at a given value.
+	 *
+	 * @param x Value at which evaluation is to be done
+	 * @return Value of the polynomial at x
+	 */
+	public abstract float evaluate(float x);
+
+	/**
+	 * Evaluates the polynomial at many values at once.
+	 *
+	 * @param xs Values at which evaluation is to be done
+	 * @param out Array in which the value at xs[i] is stored at index i, at
+	 *            least as long as xs; it may be xs itself
+	 * @throws IllegalArgumentException If out is shorter than xs
+	 */
+	public void evaluateAll(float[] xs, float[] out) {
+		if (out.length < xs.length) {
+			throw new IllegalArgumentException("output array shorter than input array");
+		}
+		evaluateAll(out == xs ? xs.clone() : xs, out, xs.length);
+	}
+
+	/**
+	 * Evaluates the polynomial at the first count values of xs, which is not
+	 * the same array as out. The default is one call to evaluate per value.
+	 */
+	void evaluateAll(float[] xs, float[] out, int count) {
+		for (int i = 0; i < count; i++) {
+			out[i] = evaluate(xs[i]);
+		}
+	}
+
+	/**
+	 * Polynomial of degree 0.
+	 */
+	static final class Constant extends CompiledPolynomial {
+		private final float c0;
+
+		Constant(float c0) {
+			this.c0 = c0;
+		}
+
+		public float evaluate(float x) {
+			return c0;
+		}
+	}
+
+	/**
+	 * Polynomial of degree 1.
+	 */
+	static final class Linear extends CompiledPolynomial {
+		private final float c0, c1;
+
+		Linear(float c0, float c1) {
+			this.c0 = c0;
+			this.c1 = c1;
+		}
+
+		public float evaluate(float x) {
+			return c1 * x + c0;
+		}
+	}
+
+	/**
+	 * Polynomial of degree 2.
+	 */
+	static final class Quadratic extends CompiledPolynomial {
+		private final float c0, c1, c2;
+
+		Quadratic(float c0, float c1, float c2) {
+			this.c0 = c0;
+			this.c1 = c1;
+			this.c2 = c2;
+		}
+
+		public float evaluate(float x) {
+			return (c2 * x + c1) * x + c0;
+		}
+	}
+
+	/**
+	 * Polynomial of degree 3.
+	 */
+	static final class Cubic extends CompiledPolynomial {
+		private final float c0, c1, c2, c3;
+
+		Cubic(float c0, float c1, float c2, float c3) {
+			this.c0 = c0;
+			this.c1 = c1;
+			this.c2 = c2;
+			this.c3 = c3;
+		}
+
+		public float evaluate(float x) {
+			return ((c3 * x + c2) * x + c1) * x + c0;
+		}
+	}
+
+	/**
+	 * Polynomial of degree 4.
+	 */
+	static final class Quartic extends CompiledPolynomial {
+		private final float c0, c1, c2, c3, c4;
+
+		Quartic(float c0, float c1, float c2, float c3, float c4) {
+			this.c0 = c0;
+			this.c1 = c1;
+			this.c2 = c2;
+			this.c3 = c3;
+			this.c4 = c4;
+		}
+
+		public float evaluate(float x) {
+			return (((c4 * x + c3) * x + c2) * x + c1) * x + c0;
+		}
+	}
+
+	/**
+	 * Dense polynomial, as the coefficients of all degrees.
+	 */
+	static final class Dense extends CompiledPolynomial {
+
+		/**
+		 * Coefficients, indexed by degree.
+		 */
+		private final float[] coeffs;
+
+		Dense(float[] coeffs) {
+			this.coeffs = coeffs;
+		}
+
+		public float evaluate(float x) {
+			float value = 0;
+			for (int i = coeffs.length - 1; i >= 0; i--) {
+				value = value * x + coeffs[i];
+			}
+			return value;
+		}
+
+		void evaluateAll(float[] xs, float[] out, int count) {
+			Horner.evaluateDense(coeffs, coeffs.length, xs, out, count);
+		}
+	}
+
+	/**
+	 * Sparse polynomial, as the coefficients of its terms in descending order
+	 * of degrees and the gaps between their degrees.
+	 */
+	static final class Sparse extends CompiledPolynomial {
+
+		/**
+		 * Coefficients, in descending order of degrees.
+		 */
+		private final float[] coeffs;
+
+		/**
+		 * Degree of term i-1 minus degree of term i, for i from 1.
+		 */
+		private final int[] gaps;
+
+		/**
+		 * Degree of the last term.
+		 */
+		private final int lowDegree;
+
+		/**
+		 * Flattens a linked list in ascending order of degrees.
+		 */
+		Sparse(Node poly) {
+			int terms = 0;
+			for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+				terms++;
+			}
+
+			coeffs = new float[terms];
+			gaps = new int[terms];
+			int i = terms;
+			for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+				coeffs[--i] = ptr.term.coeff;
+				if (ptr.next != null) {
+					gaps[i] = ptr.next.term.degree - ptr.term.degree;
+				}
+			}
+			lowDegree = terms > 0 ? poly.term.degree : 0;
+		}
+
+		public float evaluate(float x) {
+			if (coeffs.length == 0) {
+				return 0;
+			}
+			float value = coeffs[0];
+			for (int i = 1; i < coeffs.length; i++) {
+				value = (float) Horner.multiplyByPower(value, x, gaps[i]) + coeffs[i];
+			}
+			return lowDegree > 0 ? (float) Horner.multiplyByPower(value, x, lowDegree) : value;
+		}
+
+		void evaluateAll(float[] xs, float[] out, int count) {
+			Horner.evaluateSparse(coeffs, gaps, coeffs.length, lowDegree, xs, out, count);
+		}
+	}
+}
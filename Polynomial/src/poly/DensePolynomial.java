@@ -0,0 +1,256 @@
+package poly;
+
+/**
+ * This class implements a dense polynomial, stored as a single array of
+ * coefficients indexed by degree. The coefficient of x^i is at index i, and
+ * the array is trimmed so that its last entry (the leading coefficient) is
+ * never zero. The zero polynomial is an empty array.
+ *
+ * For polynomials in which most degrees up to the highest one are present,
+ * this form is much smaller than a Node linked list (one float per degree
+ * instead of a Node and a Term per term) and can be scanned sequentially.
+ *
+ * @author runb-cs112
+ *
+ */
+public class DensePolynomial {
+
+	/**
+	 * Fill ratio (number of terms divided by highest degree plus one) at or
+	 * above which a linked list polynomial is considered dense.
+	 */
+	public static final float DENSE_FILL_RATIO = 0.5f;
+
+	/**
+	 * Coefficients, indexed by degree.
+	 */
+	final float[] coeffs;
+
+	/**
+	 * Initializes this polynomial with a copy of the given coefficients,
+	 * indexed by degree. Trailing zero coefficients are dropped.
+	 *
+	 * @param coeffs Coefficients, coeffs[i] being the coefficient of x^i
+	 */
+	public DensePolynomial(float[] coeffs) {
+		this(coeffs, trimmedLength(coeffs, coeffs.length));
+	}
+
+	/**
+	 * Initializes this polynomial with the first length coefficients of the
+	 * given array. The array is used as is when its length matches, so callers
+	 * must not modify it afterwards.
+	 *
+	 * @param coeffs Coefficients, coeffs[i] being the coefficient of x^i
+	 * @param length Number of coefficients to keep, with coeffs[length-1] != 0
+	 */
+	DensePolynomial(float[] coeffs, int length) {
+		if (length == coeffs.length) {
+			this.coeffs = coeffs;
+		} else {
+			this.coeffs = new float[length];
+			System.arraycopy(coeffs, 0, this.coeffs, 0, length);
+		}
+	}
+
+	/**
+	 * Wraps an array that may have trailing zeros, trimming it if needed.
+	 *
+	 * @param coeffs Coefficients, coeffs[i] being the coefficient of x^i
+	 * @return Dense polynomial over the trimmed coefficients
+	 */
+	static DensePolynomial wrap(float[] coeffs) {
+		return new DensePolynomial(coeffs, trimmedLength(coeffs, coeffs.length));
+	}
+
+	/**
+	 * Returns the length of the given coefficients once trailing zeros are
+	 * dropped.
+	 *
+	 * @param coeffs Coefficients
+	 * @param length Number of coefficients to look at
+	 * @return Index of the last non-zero coefficient, plus one
+	 */
+	static int trimmedLength(float[] coeffs, int length) {
+		while (length > 0 && coeffs[length - 1] == 0) {
+			length--;
+		}
+		return length;
+	}
+
+	/**
+	 * Converts a polynomial linked list to dense form. Terms with zero
+	 * coefficients are ignored.
+	 *
+	 * @param poly Polynomial (front of linked list), in ascending order of degrees
+	 * @return Dense form of the polynomial
+	 */
+	public static DensePolynomial fromNode(Node poly) {
+		int maxDegree = -1;
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			if (ptr.term.degree > maxDegree) {
+				maxDegree = ptr.term.degree;
+			}
+		}
+
+		float[] coeffs = new float[maxDegree + 1];
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			coeffs[ptr.term.degree] += ptr.term.coeff;
+		}
+		return wrap(coeffs);
+	}
+
+	/**
+	 * Converts this polynomial to a new linked list, in ascending order of
+	 * degrees, with one node for each non-zero coefficient.
+	 *
+	 * @return Front of the new polynomial linked list, or null for zero
+	 */
+	public Node toNode() {
+		Node poly = null;
+		for (int i = coeffs.length - 1; i >= 0; i--) {
+			if (coeffs[i] != 0) {
+				poly = new Node(coeffs[i], i, poly);
+			}
+		}
+		return poly;
+	}
+
+	/**
+	 * Returns the fill ratio of a polynomial linked list, that is the number
+	 * of terms divided by the number of degrees from 0 up to the highest one.
+	 *
+	 * @param poly Polynomial (front of linked list), in ascending order of degrees
+	 * @return Fill ratio, between 0 and 1 for well-formed polynomials
+	 */
+	public static float fillRatio(Node poly) {
+		if (poly == null) {
+			return 0;
+		}
+
+		int terms = 0;
+		int maxDegree = 0;
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			terms++;
+			maxDegree = Math.max(maxDegree, ptr.term.degree);
+		}
+		return (float) terms / (maxDegree + 1.0f);
+	}
+
+	/**
+	 * Tells whether a polynomial linked list is dense enough to be worth
+	 * converting to dense form, according to DENSE_FILL_RATIO.
+	 *
+	 * @param poly Polynomial (front of linked list)
+	 * @return True if the polynomial should be handled in dense form
+	 */
+	public static boolean isDense(Node poly) {
+		return poly != null && fillRatio(poly) >= DENSE_FILL_RATIO;
+	}
+
+	/**
+	 * Returns the degree of this polynomial.
+	 *
+	 * @return Highest degree with a non-zero coefficient, or -1 for zero
+	 */
+	public int degree() {
+		return coeffs.length - 1;
+	}
+
+	/**
+	 * Returns the coefficient of the term with the given degree.
+	 *
+	 * @param degree Degree
+	 * @return Coefficient, zero if there is no such term
+	 */
+	public float coeff(int degree) {
+		return degree >= 0 && degree < coeffs.length ? coeffs[degree] : 0;
+	}
+
+	/**
+	 * Returns a copy of the coefficients of this polynomial, indexed by degree.
+	 *
+	 * @return New array of degree() + 1 coefficients
+	 */
+	public float[] toArray() {
+		return coeffs.clone();
+	}
+
+	/**
+	 * Returns the sum of this polynomial and another one - DOES NOT change
+	 * either of them.
+	 *
+	 * @param other Polynomial to add
+	 * @return A new polynomial which is the sum of both
+	 */
+	public DensePolynomial add(DensePolynomial other) {
+		float[] longer = coeffs.length >= other.coeffs.length ? coeffs : other.coeffs;
+		float[] shorter = longer == coeffs ? other.coeffs : coeffs;
+
+		float[] sum = longer.clone();
+		for (int i = 0; i < shorter.length; i++) {
+			sum[i] = coeffs[i] + other.coeffs[i];
+		}
+		return wrap(sum);
+	}
+
+	/**
+	 * Returns the product of this polynomial and another one - DOES NOT change
+	 * either of them. The product is computed by PolynomialMultiplier.
+	 *
+	 * @param other Polynomial to multiply by
+	 * @return A new polynomial which is the product of both
+	 */
+	public DensePolynomial multiply(DensePolynomial other) {
+		return wrap(PolynomialMultiplier.multiply(coeffs, other.coeffs));
+	}
+
+	/**
+	 * Evaluates this polynomial at a given value, with Horner's scheme.
+	 *
+	 * @param x Value at which evaluation is to be done
+	 * @return Value of this polynomial at x
+	 */
+	public float evaluate(float x) {
+		float value = 0;
+		for (int i = coeffs.length - 1; i >= 0; i--) {
+			value = value * x + coeffs[i];
+		}
+		return value;
+	}
+
+	/**
+	 * Evaluates this polynomial at many values at once, with Horner's scheme.
+	 *
+	 * @param xs Values at which evaluation is to be done
+	 * @param out Array in which the value at xs[i] is stored at index i, at
+	 *            least as long as xs
+	 * @throws IllegalArgumentException If out is shorter than xs
+	 */
+	public void evaluateAll(float[] xs, float[] out) {
+		if (out.length < xs.length) {
+			throw new IllegalArgumentException("output array shorter than input array");
+		}
+		Horner.evaluateDense(coeffs, coeffs.length, out == xs ? xs.clone() : xs, out, xs.length);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		if (coeffs.length == 0) {
+			return "0";
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = coeffs.length - 1; i >= 0; i--) {
+			if (coeffs[i] != 0) {
+				if (sb.length() > 0) {
+					sb.append(" + ");
+				}
+				sb.append(new Term(coeffs[i], i));
+			}
+		}
+		return sb.toString();
+	}
+}
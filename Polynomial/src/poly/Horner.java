@@ -0,0 +1,154 @@
+package poly;
+
+/**
+ * This class implements batch evaluation of polynomials with Horner's scheme,
+ * on coefficient arrays flattened out of the linked list form.
+ *
+ * Points are processed in blocks of BLOCK values. Within a block, each
+ * coefficient is applied to all the points with a single loop of the form
+ * out[j] = out[j] * xs[j] + c, whose iterations are independent, so that the
+ * JIT compiler can unroll it and turn it into SIMD instructions, while the
+ * block of points stays in the L1 cache across coefficients.
+ *
+ * @author runb-cs112
+ *
+ */
+class Horner {
+
+	/**
+	 * Number of points evaluated together.
+	 */
+	static final int BLOCK = 512;
+
+	/**
+	 * Evaluates a dense polynomial at count points.
+	 *
+	 * @param coeffs Coefficients, indexed by degree
+	 * @param length Number of coefficients to use, from degree 0
+	 * @param xs Points at which to evaluate, must not be the same array as out
+	 * @param out Array in which the values are stored
+	 * @param count Number of points
+	 */
+	static void evaluateDense(float[] coeffs, int length, float[] xs, float[] out, int count) {
+		if (length == 0) {
+			java.util.Arrays.fill(out, 0, count, 0);
+			return;
+		}
+
+		float lead = coeffs[length - 1];
+		for (int start = 0; start < count; start += BLOCK) {
+			int end = Math.min(count, start + BLOCK);
+			for (int j = start; j < end; j++) {
+				out[j] = lead;
+			}
+			for (int i = length - 2; i >= 0; i--) {
+				float c = coeffs[i];
+				for (int j = start; j < end; j++) {
+					out[j] = out[j] * xs[j] + c;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Evaluates a sparse polynomial at count points, with the gap-aware form of
+	 * Horner's scheme: between two consecutive terms, the running value is
+	 * multiplied by x raised to the difference of their degrees, and the result
+	 * is finally multiplied by x raised to the lowest degree.
+	 *
+	 * For each block of points, the powers x^(2^b) are tabulated once, so that
+	 * multiplying by x^gap costs one pass over the block per bit set in gap.
+	 *
+	 * @param coeffs Coefficients, in descending order of degrees
+	 * @param gaps Degree of term i-1 minus degree of term i, for i from 1
+	 * @param terms Number of terms
+	 * @param lowDegree Degree of the last term
+	 * @param xs Points at which to evaluate, must not be the same array as out
+	 * @param out Array in which the values are stored
+	 * @param count Number of points
+	 */
+	static void evaluateSparse(float[] coeffs, int[] gaps, int terms, int lowDegree, float[] xs, float[] out,
+			int count) {
+		if (terms == 0) {
+			java.util.Arrays.fill(out, 0, count, 0);
+			return;
+		}
+
+		int maxGap = lowDegree;
+		for (int i = 1; i < terms; i++) {
+			maxGap = Math.max(maxGap, gaps[i]);
+		}
+		float[][] squares = new float[Math.max(1, 32 - Integer.numberOfLeadingZeros(maxGap))][BLOCK];
+
+		for (int start = 0; start < count; start += BLOCK) {
+			int n = Math.min(count - start, BLOCK);
+			System.arraycopy(xs, start, squares[0], 0, n);
+			for (int b = 1; b < squares.length; b++) {
+				float[] prev = squares[b - 1], next = squares[b];
+				for (int k = 0; k < n; k++) {
+					next[k] = prev[k] * prev[k];
+				}
+			}
+
+			float lead = coeffs[0];
+			for (int k = 0; k < n; k++) {
+				out[start + k] = lead;
+			}
+			for (int i = 1; i < terms; i++) {
+				multiplyByPower(out, start, n, squares, gaps[i], coeffs[i]);
+			}
+			if (lowDegree > 0) {
+				multiplyByPower(out, start, n, squares, lowDegree, 0);
+			}
+		}
+	}
+
+	/**
+	 * Sets out[start+k] to out[start+k] * xs[start+k]^power + c for k in [0, n),
+	 * given the table squares[b][k] = xs[start+k]^(2^b).
+	 */
+	private static void multiplyByPower(float[] out, int start, int n, float[][] squares, int power, float c) {
+		if (power == 0) {
+			for (int k = 0; k < n; k++) {
+				out[start + k] += c;
+			}
+			return;
+		}
+
+		int top = 31 - Integer.numberOfLeadingZeros(power);
+		for (int b = 0; b < top; b++) {
+			if ((power & (1 << b)) != 0) {
+				float[] s = squares[b];
+				for (int k = 0; k < n; k++) {
+					out[start + k] *= s[k];
+				}
+			}
+		}
+		float[] s = squares[top];
+		for (int k = 0; k < n; k++) {
+			out[start + k] = out[start + k] * s[k] + c;
+		}
+	}
+
+	/**
+	 * Returns value * x^power, computed in double by multiplying value by the
+	 * squares x^(2^b) of the bits of power, so that it is finite whenever the
+	 * result fits in a double even if x^power alone does not fit in a float.
+	 *
+	 * @param value Value to multiply
+	 * @param x Base
+	 * @param power Exponent, non-negative
+	 * @return value * x^power
+	 */
+	static double multiplyByPower(double value, float x, int power) {
+		if (value == 0) {
+			return value;
+		}
+		for (double square = x; power != 0; power >>>= 1, square *= square) {
+			if ((power & 1) != 0) {
+				value *= square;
+			}
+		}
+		return value;
+	}
+}
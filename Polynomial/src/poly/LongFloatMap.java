@@ -0,0 +1,152 @@
+package poly;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a map from long keys to float values, with open
+ * addressing and linear probing over parallel primitive arrays, so that no
+ * object is created per entry. It is meant for accumulating coefficients by
+ * monomial or degree: entries are only added to, never removed, and entries
+ * whose value becomes zero stay in the map until it is cleared.
+ *
+ * The key EMPTY marks free slots and cannot be stored.
+ *
+ * @author runb-cs112
+ *
+ */
+class LongFloatMap {
+
+	/**
+	 * Key of free slots.
+	 */
+	static final long EMPTY = Long.MIN_VALUE;
+
+	/**
+	 * Largest fraction of slots in use before the table is doubled.
+	 */
+	static final float LOAD_FACTOR = 0.5f;
+
+	/**
+	 * Keys, EMPTY for free slots.
+	 */
+	long[] keys;
+
+	/**
+	 * Values, for the slots in use.
+	 */
+	float[] values;
+
+	/**
+	 * Number of slots in use.
+	 */
+	int size;
+
+	/**
+	 * Initializes an empty map with room for the given number of entries
+	 * before it grows.
+	 *
+	 * @param expected Expected number of entries
+	 */
+	LongFloatMap(int expected) {
+		int capacity = 4;
+		while (capacity < expected / LOAD_FACTOR && capacity < 1 << 30) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new float[capacity];
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	/**
+	 * Returns the slot of a key, or of the free slot where it would go.
+	 */
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		// spread the bits of the key, which are often small or regular
+		long h = key * 0x9e3779b97f4a7c15L;
+		int i = (int) (h ^ (h >>> 32)) & mask;
+		while (keys[i] != key && keys[i] != EMPTY) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Adds a value to the value of a key, which starts at 0.
+	 *
+	 * @param key Key, not EMPTY
+	 * @param value Value to add
+	 */
+	void add(long key, float value) {
+		int i = slot(key);
+		if (keys[i] == EMPTY) {
+			if (size + 1 > keys.length * LOAD_FACTOR) {
+				grow();
+				i = slot(key);
+			}
+			keys[i] = key;
+			values[i] = value;
+			size++;
+		} else {
+			values[i] += value;
+		}
+	}
+
+	/**
+	 * Returns the value of a key.
+	 *
+	 * @param key Key
+	 * @return Value, 0 if the key is not in the map
+	 */
+	float get(long key) {
+		int i = slot(key);
+		return keys[i] == EMPTY ? 0 : values[i];
+	}
+
+	/**
+	 * Removes all entries, keeping the table.
+	 */
+	void clear() {
+		if (size > 0) {
+			Arrays.fill(keys, EMPTY);
+			size = 0;
+		}
+	}
+
+	/**
+	 * Returns the keys whose values are not zero, in ascending order.
+	 *
+	 * @return New array of keys
+	 */
+	long[] sortedKeys() {
+		long[] sorted = new long[size];
+		int n = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY && values[i] != 0) {
+				sorted[n++] = keys[i];
+			}
+		}
+		sorted = Arrays.copyOf(sorted, n);
+		Arrays.sort(sorted);
+		return sorted;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		float[] oldValues = values;
+		allocate(oldKeys.length << 1);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int j = slot(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+				size++;
+			}
+		}
+	}
+}
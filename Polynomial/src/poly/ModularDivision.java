@@ -0,0 +1,288 @@
+package poly;
+
+/**
+ * This class implements division with remainder and greatest common divisors
+ * of polynomials modulo a prime p, given as int coefficient arrays in [0, p)
+ * indexed by degree and trimmed of trailing zeros.
+ *
+ * As in PolynomialDivision, long quotients by long divisors are computed from
+ * a Newton iteration power series reciprocal, so that division costs a
+ * constant number of multiplications by NumberTheoreticTransform. Greatest
+ * common divisors of polynomials of degree at least HALF_GCD_THRESHOLD are
+ * computed with the half-GCD algorithm, which finds the Euclidean remainder
+ * sequence halfway through from the high halves of the operands alone, in
+ * O(M(n) log n) time instead of the O(n^2) of Euclid's algorithm.
+ *
+ * @author runb-cs112
+ *
+ */
+class ModularDivision {
+
+	/**
+	 * Quotient and divisor length below which long division is used.
+	 */
+	static final int NEWTON_THRESHOLD = 64;
+
+	/**
+	 * Degree below which Euclid's algorithm is used for greatest common
+	 * divisors.
+	 */
+	static final int HALF_GCD_THRESHOLD = 128;
+
+	/**
+	 * Returns the power series reciprocal of f modulo x^k.
+	 *
+	 * @param f Series, with f[0] != 0
+	 * @param k Number of coefficients wanted
+	 * @param p Modulus
+	 * @return The k first coefficients of 1 / f
+	 */
+	static int[] reciprocal(int[] f, int k, int p) {
+		int[] g = { (int) NumberTheoreticTransform.pow(f[0], p - 2, p) };
+		for (int len = 1; len < k;) {
+			len = Math.min(2 * len, k);
+			int[] fg = truncate(NumberTheoreticTransform.multiply(truncate(f, len), g, p), len);
+			// e = 2 - f * g
+			int[] e = new int[len];
+			for (int i = 0; i < fg.length; i++) {
+				e[i] = fg[i] == 0 ? 0 : p - fg[i];
+			}
+			e[0] = (int) ((e[0] + 2L) % p);
+			g = truncate(NumberTheoreticTransform.multiply(g, e, p), len);
+		}
+		return truncate(g, k);
+	}
+
+	/**
+	 * Divides a by b.
+	 *
+	 * @param a Dividend
+	 * @param b Divisor, not zero
+	 * @param p Modulus, a prime
+	 * @return Quotient and remainder, in that order, both trimmed
+	 */
+	static int[][] divide(int[] a, int[] b, int p) {
+		int n = b.length - 1;
+		int m = a.length - 1;
+		if (m < n) {
+			return new int[][] { new int[0], a };
+		}
+
+		int k = m - n + 1;
+		if (k < NEWTON_THRESHOLD || n < NEWTON_THRESHOLD) {
+			return longDivide(a, b, p);
+		}
+
+		// rev(q) = rev(a) / rev(b) mod x^k
+		int[] revA = new int[k];
+		for (int i = 0; i < k; i++) {
+			revA[i] = a[m - i];
+		}
+		int[] revB = new int[Math.min(k, n + 1)];
+		for (int i = 0; i < revB.length; i++) {
+			revB[i] = b[n - i];
+		}
+		int[] revQ = truncate(NumberTheoreticTransform.multiply(revA, reciprocal(revB, k, p), p), k);
+		int[] q = new int[k];
+		for (int i = 0; i < k; i++) {
+			q[i] = revQ[k - 1 - i];
+		}
+
+		// r = a - b * q, of which only the n low coefficients are non-zero
+		int[] bq = NumberTheoreticTransform.multiply(b, q, p);
+		int[] r = new int[n];
+		for (int i = 0; i < n; i++) {
+			int d = a[i] - bq[i];
+			r[i] = d < 0 ? d + p : d;
+		}
+		return new int[][] { trim(q), trim(r) };
+	}
+
+	/**
+	 * Schoolbook long division modulo p.
+	 */
+	private static int[][] longDivide(int[] a, int[] b, int p) {
+		int n = b.length - 1;
+		int m = a.length - 1;
+		long[] r = new long[m + 1];
+		for (int i = 0; i <= m; i++) {
+			r[i] = a[i];
+		}
+		int[] q = new int[m - n + 1];
+		long inverse = NumberTheoreticTransform.pow(b[n], p - 2, p);
+		for (int i = m - n; i >= 0; i--) {
+			long c = r[i + n] % p * inverse % p;
+			q[i] = (int) c;
+			if (c != 0) {
+				long negated = p - c;
+				for (int j = 0; j <= n; j++) {
+					r[i + j] = (r[i + j] + negated * b[j]) % p;
+				}
+			}
+		}
+		int[] remainder = new int[n];
+		for (int i = 0; i < n; i++) {
+			remainder[i] = (int) r[i];
+		}
+		return new int[][] { trim(q), trim(remainder) };
+	}
+
+	/**
+	 * Returns the monic greatest common divisor of a and b.
+	 *
+	 * @param a First polynomial
+	 * @param b Second polynomial
+	 * @param p Modulus, a prime
+	 * @return Monic greatest common divisor, empty if both are zero
+	 */
+	static int[] gcd(int[] a, int[] b, int p) {
+		if (a.length < b.length) {
+			int[] t = a;
+			a = b;
+			b = t;
+		}
+		while (b.length > 0) {
+			if (b.length > HALF_GCD_THRESHOLD) {
+				int[][] m = halfGcd(a, b, p);
+				int[][] ab = apply(m, a, b, p);
+				a = ab[0];
+				b = ab[1];
+				if (b.length == 0) {
+					break;
+				}
+			}
+			int[] r = divide(a, b, p)[1];
+			a = b;
+			b = r;
+		}
+		return monic(a, p);
+	}
+
+	/**
+	 * Returns a matrix M, as {M00, M01, M10, M11}, product of Euclidean steps
+	 * (a, b) -> (b, a - q b), such that M (a, b) is the pair of consecutive
+	 * remainders of the Euclidean sequence of a and b that straddles degree
+	 * m = ceil(deg a / 2). The matrix is obtained from the high halves of a and
+	 * b, whose Euclidean sequence agrees with that of a and b on the leading
+	 * quotients: first recursively from the coefficients of degree m and up,
+	 * which gets about halfway to degree m, then after one explicit step from
+	 * the top coefficients of the new pair, which gets the rest of the way.
+	 */
+	static int[][] halfGcd(int[] a, int[] b, int p) {
+		int m = a.length / 2;
+		if (b.length - 1 < m || b.length >= a.length) {
+			return identity();
+		}
+
+		int[][] r1 = halfGcd(shift(a, m), shift(b, m), p);
+		int[][] ab = apply(r1, a, b, p);
+		int[] a1 = ab[0], b1 = ab[1];
+		if (b1.length - 1 < m) {
+			return r1;
+		}
+
+		int[][] qr = divide(a1, b1, p);
+		int[][] step = { new int[0], { 1 }, { 1 }, negate(qr[0], p) };
+		int[] a2 = b1, b2 = qr[1];
+		int k = Math.max(0, 2 * m - (a2.length - 1));
+		int[] a2High = shift(a2, k);
+		if (a2High.length >= a.length) {
+			return multiply(step, r1, p);
+		}
+		int[][] r2 = halfGcd(a2High, shift(b2, k), p);
+		return multiply(r2, multiply(step, r1, p), p);
+	}
+
+	private static int[][] identity() {
+		return new int[][] { { 1 }, new int[0], new int[0], { 1 } };
+	}
+
+	/**
+	 * Returns M (a, b).
+	 */
+	private static int[][] apply(int[][] m, int[] a, int[] b, int p) {
+		return new int[][] { add(mul(m[0], a, p), mul(m[1], b, p), p), add(mul(m[2], a, p), mul(m[3], b, p), p) };
+	}
+
+	/**
+	 * Returns the matrix product x y.
+	 */
+	private static int[][] multiply(int[][] x, int[][] y, int p) {
+		return new int[][] { add(mul(x[0], y[0], p), mul(x[1], y[2], p), p),
+				add(mul(x[0], y[1], p), mul(x[1], y[3], p), p), add(mul(x[2], y[0], p), mul(x[3], y[2], p), p),
+				add(mul(x[2], y[1], p), mul(x[3], y[3], p), p) };
+	}
+
+	private static int[] mul(int[] a, int[] b, int p) {
+		return trim(NumberTheoreticTransform.multiply(a, b, p));
+	}
+
+	private static int[] add(int[] a, int[] b, int p) {
+		int[] longer = a.length >= b.length ? a : b;
+		int[] shorter = longer == a ? b : a;
+		int[] sum = longer.clone();
+		for (int i = 0; i < shorter.length; i++) {
+			int s = a[i] - (p - b[i]);
+			sum[i] = s < 0 ? s + p : s;
+		}
+		return trim(sum);
+	}
+
+	private static int[] negate(int[] a, int p) {
+		int[] n = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			n[i] = a[i] == 0 ? 0 : p - a[i];
+		}
+		return n;
+	}
+
+	/**
+	 * Returns a divided by x^k, dropping the coefficients of lower degrees.
+	 */
+	private static int[] shift(int[] a, int k) {
+		if (a.length <= k) {
+			return new int[0];
+		}
+		int[] s = new int[a.length - k];
+		System.arraycopy(a, k, s, 0, s.length);
+		return s;
+	}
+
+	/**
+	 * Returns a divided by its leading coefficient.
+	 */
+	static int[] monic(int[] a, int p) {
+		if (a.length == 0 || a[a.length - 1] == 1) {
+			return a;
+		}
+		long inverse = NumberTheoreticTransform.pow(a[a.length - 1], p - 2, p);
+		int[] m = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			m[i] = (int) (a[i] * inverse % p);
+		}
+		return m;
+	}
+
+	/**
+	 * Returns the first len coefficients of a, padded with zeros if needed.
+	 */
+	static int[] truncate(int[] a, int len) {
+		if (a.length == len) {
+			return a;
+		}
+		int[] t = new int[len];
+		System.arraycopy(a, 0, t, 0, Math.min(len, a.length));
+		return t;
+	}
+
+	/**
+	 * Returns a without its trailing zeros.
+	 */
+	static int[] trim(int[] a) {
+		int length = a.length;
+		while (length > 0 && a[length - 1] == 0) {
+			length--;
+		}
+		return length == a.length ? a : truncate(a, length);
+	}
+}
@@ -0,0 +1,340 @@
+package poly;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * This class implements exact polynomial arithmetic over the prime field Z/pZ.
+ * Like DensePolynomial, coefficients are stored in a single array indexed by
+ * degree and trimmed so that the leading coefficient is never zero, but they
+ * are ints in [0, p) instead of floats, so that sums and products never lose
+ * precision however large the polynomials are.
+ *
+ * Products are computed by NumberTheoreticTransform, in O(n log n) time. The
+ * default modulus is one of its transform primes, for which a product takes
+ * three transforms; any other prime below 2^31 takes three products and a
+ * Chinese remainder reconstruction. multiplyIntegers uses the same
+ * reconstruction to multiply polynomials with integer coefficients exactly.
+ *
+ * @author runb-cs112
+ *
+ */
+public class ModularPolynomial {
+
+	/**
+	 * Default modulus, the transform prime 119 * 2^23 + 1.
+	 */
+	public static final int DEFAULT_MODULUS = 998244353;
+
+	/**
+	 * Modulus, a prime.
+	 */
+	final int modulus;
+
+	/**
+	 * Coefficients in [0, modulus), indexed by degree.
+	 */
+	final int[] coeffs;
+
+	/**
+	 * Initializes this polynomial with the given coefficients, reduced modulo
+	 * the given prime. Trailing zero coefficients are dropped.
+	 *
+	 * @param coeffs Coefficients, coeffs[i] being the coefficient of x^i; they
+	 *               may be negative
+	 * @param modulus Modulus, a prime less than 2^31
+	 * @throws IllegalArgumentException If modulus is not a prime
+	 */
+	public ModularPolynomial(int[] coeffs, int modulus) {
+		checkModulus(modulus);
+		int[] reduced = new int[coeffs.length];
+		for (int i = 0; i < coeffs.length; i++) {
+			int c = coeffs[i] % modulus;
+			reduced[i] = c < 0 ? c + modulus : c;
+		}
+		this.modulus = modulus;
+		this.coeffs = trim(reduced);
+	}
+
+	/**
+	 * Initializes this polynomial over coefficients already reduced and
+	 * trimmed, which are used as is.
+	 */
+	private ModularPolynomial(int modulus, int[] coeffs) {
+		this.modulus = modulus;
+		this.coeffs = coeffs;
+	}
+
+	private static void checkModulus(int modulus) {
+		if (modulus < 2 || !BigInteger.valueOf(modulus).isProbablePrime(32)) {
+			throw new IllegalArgumentException("modulus " + modulus + " is not a prime");
+		}
+	}
+
+	private static int[] trim(int[] coeffs) {
+		int length = coeffs.length;
+		while (length > 0 && coeffs[length - 1] == 0) {
+			length--;
+		}
+		if (length == coeffs.length) {
+			return coeffs;
+		}
+		int[] trimmed = new int[length];
+		System.arraycopy(coeffs, 0, trimmed, 0, length);
+		return trimmed;
+	}
+
+	/**
+	 * Converts a polynomial linked list with integer coefficients to a
+	 * polynomial modulo a prime. Terms of equal degree are added up.
+	 *
+	 * @param poly Polynomial (front of linked list)
+	 * @param modulus Modulus, a prime less than 2^31
+	 * @return The polynomial with its coefficients reduced modulo modulus
+	 * @throws IllegalArgumentException If a coefficient is not an integer, a
+	 *                                  degree is negative, or modulus is not a
+	 *                                  prime
+	 */
+	public static ModularPolynomial fromNode(Node poly, int modulus) {
+		checkModulus(modulus);
+		int maxDegree = -1;
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			if (ptr.term.degree < 0) {
+				throw new IllegalArgumentException("negative degree " + ptr.term.degree);
+			}
+			maxDegree = Math.max(maxDegree, ptr.term.degree);
+		}
+
+		long[] coeffs = new long[maxDegree + 1];
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			coeffs[ptr.term.degree] = (coeffs[ptr.term.degree] + residue(ptr.term.coeff, modulus)) % modulus;
+		}
+		int[] reduced = new int[coeffs.length];
+		for (int i = 0; i < coeffs.length; i++) {
+			reduced[i] = (int) coeffs[i];
+		}
+		return new ModularPolynomial(modulus, trim(reduced));
+	}
+
+	/**
+	 * Returns the residue in [0, modulus) of an integral float.
+	 */
+	private static long residue(float coeff, int modulus) {
+		if (Float.isInfinite(coeff) || coeff != Math.rint(coeff)) {
+			throw new IllegalArgumentException("coefficient " + coeff + " is not an integer");
+		}
+		if (Math.abs(coeff) < 0x1p62f) {
+			long c = (long) coeff % modulus;
+			return c < 0 ? c + modulus : c;
+		}
+		return new BigDecimal(coeff).toBigInteger().mod(BigInteger.valueOf(modulus)).longValue();
+	}
+
+	/**
+	 * Converts this polynomial to a new linked list, in ascending order of
+	 * degrees, with one node for each non-zero coefficient. Coefficients are
+	 * the representatives in [0, modulus), which are rounded if they exceed
+	 * 2^24.
+	 *
+	 * @return Front of the new polynomial linked list, or null for zero
+	 */
+	public Node toNode() {
+		Node poly = null;
+		for (int i = coeffs.length - 1; i >= 0; i--) {
+			if (coeffs[i] != 0) {
+				poly = new Node(coeffs[i], i, poly);
+			}
+		}
+		return poly;
+	}
+
+	/**
+	 * Returns the modulus of this polynomial.
+	 *
+	 * @return Modulus
+	 */
+	public int modulus() {
+		return modulus;
+	}
+
+	/**
+	 * Returns the degree of this polynomial.
+	 *
+	 * @return Highest degree with a non-zero coefficient, or -1 for zero
+	 */
+	public int degree() {
+		return coeffs.length - 1;
+	}
+
+	/**
+	 * Returns the coefficient of the term with the given degree.
+	 *
+	 * @param degree Degree
+	 * @return Coefficient in [0, modulus), zero if there is no such term
+	 */
+	public int coeff(int degree) {
+		return degree >= 0 && degree < coeffs.length ? coeffs[degree] : 0;
+	}
+
+	/**
+	 * Returns a copy of the coefficients of this polynomial, indexed by degree.
+	 *
+	 * @return New array of degree() + 1 coefficients in [0, modulus)
+	 */
+	public int[] toArray() {
+		return coeffs.clone();
+	}
+
+	private void checkSameModulus(ModularPolynomial other) {
+		if (other.modulus != modulus) {
+			throw new IllegalArgumentException("moduli " + modulus + " and " + other.modulus + " differ");
+		}
+	}
+
+	/**
+	 * Returns the sum of this polynomial and another one - DOES NOT change
+	 * either of them.
+	 *
+	 * @param other Polynomial to add, with the same modulus
+	 * @return A new polynomial which is the sum of both
+	 * @throws IllegalArgumentException If the moduli differ
+	 */
+	public ModularPolynomial add(ModularPolynomial other) {
+		checkSameModulus(other);
+		int[] longer = coeffs.length >= other.coeffs.length ? coeffs : other.coeffs;
+		int[] shorter = longer == coeffs ? other.coeffs : coeffs;
+
+		int[] sum = longer.clone();
+		for (int i = 0; i < shorter.length; i++) {
+			int s = coeffs[i] - (modulus - other.coeffs[i]);
+			sum[i] = s < 0 ? s + modulus : s;
+		}
+		return new ModularPolynomial(modulus, trim(sum));
+	}
+
+	/**
+	 * Returns the product of this polynomial and another one - DOES NOT change
+	 * either of them. The product is computed by NumberTheoreticTransform.
+	 *
+	 * @param other Polynomial to multiply by, with the same modulus
+	 * @return A new polynomial which is the product of both
+	 * @throws IllegalArgumentException If the moduli differ, or the product has
+	 *                                  more than 2^23 coefficients
+	 */
+	public ModularPolynomial multiply(ModularPolynomial other) {
+		checkSameModulus(other);
+		return new ModularPolynomial(modulus, trim(NumberTheoreticTransform.multiply(coeffs, other.coeffs, modulus)));
+	}
+
+	/**
+	 * Returns the quotient of the division of this polynomial by another one -
+	 * DOES NOT change either of them. Long quotients by long divisors are
+	 * computed with a Newton iteration reciprocal (see ModularDivision).
+	 *
+	 * @param other Divisor, with the same modulus
+	 * @return A new polynomial q such that this = q * other + r, with
+	 *         deg r < deg other
+	 * @throws IllegalArgumentException If the moduli differ
+	 * @throws ArithmeticException If other is zero
+	 */
+	public ModularPolynomial divide(ModularPolynomial other) {
+		return new ModularPolynomial(modulus, divideBy(other)[0]);
+	}
+
+	/**
+	 * Returns the remainder of the division of this polynomial by another one -
+	 * DOES NOT change either of them.
+	 *
+	 * @param other Divisor, with the same modulus
+	 * @return A new polynomial r such that this = q * other + r, with
+	 *         deg r < deg other
+	 * @throws IllegalArgumentException If the moduli differ
+	 * @throws ArithmeticException If other is zero
+	 */
+	public ModularPolynomial remainder(ModularPolynomial other) {
+		return new ModularPolynomial(modulus, divideBy(other)[1]);
+	}
+
+	private int[][] divideBy(ModularPolynomial other) {
+		checkSameModulus(other);
+		if (other.coeffs.length == 0) {
+			throw new ArithmeticException("division by zero polynomial");
+		}
+		return ModularDivision.divide(coeffs, other.coeffs, modulus);
+	}
+
+	/**
+	 * Returns the greatest common divisor of this polynomial and another one -
+	 * DOES NOT change either of them. Large polynomials are reduced with the
+	 * half-GCD algorithm (see ModularDivision).
+	 *
+	 * @param other Polynomial, with the same modulus
+	 * @return A new monic polynomial dividing both, and divisible by every
+	 *         common divisor; zero if both are zero
+	 * @throws IllegalArgumentException If the moduli differ
+	 */
+	public ModularPolynomial gcd(ModularPolynomial other) {
+		checkSameModulus(other);
+		return new ModularPolynomial(modulus, ModularDivision.gcd(coeffs, other.coeffs, modulus));
+	}
+
+	/**
+	 * Evaluates this polynomial at a given value, with Horner's scheme.
+	 *
+	 * @param x Value at which evaluation is to be done, reduced modulo modulus
+	 * @return Value of this polynomial at x, in [0, modulus)
+	 */
+	public int evaluate(int x) {
+		long r = x % modulus;
+		if (r < 0) {
+			r += modulus;
+		}
+		long value = 0;
+		for (int i = coeffs.length - 1; i >= 0; i--) {
+			value = (value * r + coeffs[i]) % modulus;
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Multiplies two polynomials with integer coefficients exactly, by
+	 * multiplying them modulo three transform primes and reconstructing each
+	 * coefficient with the Chinese remainder theorem.
+	 *
+	 * @param a Coefficients of the first polynomial, indexed by degree
+	 * @param b Coefficients of the second polynomial, indexed by degree
+	 * @return Coefficients of the product, indexed by degree
+	 * @throws ArithmeticException If a coefficient of the product may not fit
+	 *                             in a long, that is if the length of the
+	 *                             shorter operand times the largest absolute
+	 *                             values of both reaches 2^62
+	 */
+	public static long[] multiplyIntegers(long[] a, long[] b) {
+		return NumberTheoreticTransform.multiplyExact(a, b);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		if (coeffs.length == 0) {
+			return "0";
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = coeffs.length - 1; i >= 0; i--) {
+			if (coeffs[i] != 0) {
+				if (sb.length() > 0) {
+					sb.append(" + ");
+				}
+				sb.append(coeffs[i]);
+				if (i == 1) {
+					sb.append('x');
+				} else if (i > 1) {
+					sb.append("x^").append(i);
+				}
+			}
+		}
+		return sb.append(" (mod ").append(modulus).append(')').toString();
+	}
+}
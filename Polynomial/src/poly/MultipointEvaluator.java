@@ -0,0 +1,231 @@
+package poly;
+
+/**
+ * This class implements fast evaluation of a polynomial at many points with a
+ * subproduct tree. The points are cut into blocks of LEAF_SIZE; the leaves of
+ * the tree are the products of (x - xs[i]) over each block, and each inner node
+ * is the product of its two children, computed with PolynomialMultiplier. The
+ * polynomial is then reduced modulo the root, and each remainder modulo the
+ * children of its node, down to the leaves, where the remainders (of degree
+ * less than LEAF_SIZE) are evaluated at the points of their block with
+ * Horner's scheme. Remainders are computed with PolynomialDivision.
+ *
+ * All intermediate coefficients are kept in double. Reducing modulo a product
+ * of many linear factors is numerically ill-conditioned, and the rounding
+ * errors of the remainders grow with the coefficients of the products, which
+ * for points in [-1, 1] soon reach many bits. A node of the tree is therefore
+ * only used when its largest coefficient is at most 2^MAX_GROWTH_BITS, and
+ * those below it are too. A subtree with fewer than
+ * Polynomial.MULTIPOINT_THRESHOLD points is evaluated with Horner's scheme
+ * when its root is not used, or when the polynomial was not reduced modulo its
+ * parent, since reducing a long polynomial modulo many small nodes costs more
+ * than Horner's scheme; larger subtrees are evaluated through their children.
+ * When the highest nodes that are used have fewer points than that, evaluate
+ * leaves the whole evaluation to the caller.
+ * Measured on random points, nodes within the bound give values within
+ * TOLERANCE, with errors near the precision of float; the results are still
+ * checked at a few sample points against Horner's scheme in double, and when
+ * that test fails, evaluate reports it and the caller falls back to Horner.
+ *
+ * In practice this confines the tree to points clustered around 0. The
+ * coefficients of the product of (x - xs[i]) over n points in [-w, w] are up
+ * to (1 + w)^n, so the leaf products of 32 points spread over [-1, 1] are
+ * already rejected, and evaluate needs nodes of
+ * Polynomial.MULTIPOINT_THRESHOLD points. Measured on 262144 random points,
+ * the tree is used for points in [-0.015, 0.015] and not for points in
+ * [-0.02, 0.02] or any wider interval, where evaluateMultipoint only adds the
+ * cost of building the rejected tree to that of Horner's scheme.
+ *
+ * @author runb-cs112
+ *
+ */
+class MultipointEvaluator {
+
+	/**
+	 * Number of points evaluated by Horner's scheme at each leaf of the tree.
+	 */
+	static final int LEAF_SIZE = 32;
+
+	/**
+	 * Largest base 2 logarithm of the coefficients of a node of the subproduct
+	 * tree for which the node is used.
+	 */
+	static final int MAX_GROWTH_BITS = 20;
+
+	/**
+	 * Error allowed on each value, relative to the sum of the absolute values of
+	 * the terms of the polynomial at the point.
+	 */
+	static final double TOLERANCE = 0x1p-20;
+
+	/**
+	 * Number of points at which the results of the tree are checked.
+	 */
+	static final int SAMPLES = 8;
+
+	/**
+	 * Evaluates a polynomial at count points, if the subproduct tree of the
+	 * points is well enough conditioned to give values within TOLERANCE.
+	 *
+	 * @param f Coefficients of the polynomial, indexed by degree
+	 * @param xs Points at which to evaluate
+	 * @param out Array in which the values are stored
+	 * @param count Number of points
+	 * @return True if the values were computed, false if the caller must use
+	 *         another method (out may then hold partial results)
+	 */
+	static boolean evaluate(double[] f, float[] xs, float[] out, int count) {
+		if (count == 0) {
+			return true;
+		}
+
+		double[][][] tree = build(xs, count);
+		if (tree == null || (long) LEAF_SIZE << (tree.length - 1) < Polynomial.MULTIPOINT_THRESHOLD) {
+			return false;
+		}
+		int top = tree.length - 1;
+		for (int i = 0; i < tree[top].length; i++) {
+			descend(tree, top, i, f, xs, out, count);
+		}
+
+		for (int s = 0; s < SAMPLES; s++) {
+			int j = (int) ((long) s * (count - 1) / Math.max(1, SAMPLES - 1));
+			double x = xs[j];
+			double value = 0, scale = 0;
+			for (int i = f.length - 1; i >= 0; i--) {
+				value = value * x + f[i];
+				scale = scale * Math.abs(x) + Math.abs(f[i]);
+			}
+			if (!(Math.abs(out[j] - value) <= TOLERANCE * scale + Math.ulp((float) value))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Builds the subproduct tree of the points. Level 0 holds the leaf
+	 * products, and each following level the products of pairs of nodes of the
+	 * level below; an unpaired last node is carried up as is. Nodes whose
+	 * coefficients exceed 2^MAX_GROWTH_BITS, and those above them, are null,
+	 * and the levels end below the first one whose products are all null.
+	 *
+	 * @return The levels of the tree, or null if every leaf is null
+	 */
+	private static double[][][] build(float[] xs, int count) {
+		int leaves = (count + LEAF_SIZE - 1) / LEAF_SIZE;
+		int levels = 1;
+		for (int n = leaves; n > 1; n = (n + 1) / 2) {
+			levels++;
+		}
+
+		double[][][] tree = new double[levels][][];
+		tree[0] = new double[leaves][];
+		boolean any = false;
+		for (int i = 0; i < leaves; i++) {
+			int start = i * LEAF_SIZE;
+			int end = Math.min(count, start + LEAF_SIZE);
+			double[] p = { 1 };
+			for (int j = start; j < end; j++) {
+				// p = p * (x - xs[j])
+				double[] q = new double[p.length + 1];
+				for (int k = 0; k < p.length; k++) {
+					q[k + 1] += p[k];
+					q[k] -= p[k] * xs[j];
+				}
+				p = q;
+			}
+			tree[0][i] = bounded(p);
+			any |= tree[0][i] != null;
+		}
+		if (!any) {
+			return null;
+		}
+
+		for (int level = 1; level < levels; level++) {
+			double[][] below = tree[level - 1];
+			double[][] nodes = new double[(below.length + 1) / 2][];
+			any = false;
+			for (int i = 0; i < nodes.length; i++) {
+				if (2 * i + 1 >= below.length) {
+					nodes[i] = below[2 * i];
+				} else if (below[2 * i] != null && below[2 * i + 1] != null) {
+					nodes[i] = bounded(PolynomialMultiplier.multiply(below[2 * i], below[2 * i + 1]));
+					any |= nodes[i] != null;
+				}
+			}
+			if (!any) {
+				double[][][] built = new double[level][][];
+				System.arraycopy(tree, 0, built, 0, level);
+				return built;
+			}
+			tree[level] = nodes;
+		}
+		return tree;
+	}
+
+	/**
+	 * Returns p if its coefficients are at most 2^MAX_GROWTH_BITS, and null
+	 * otherwise.
+	 */
+	private static double[] bounded(double[] p) {
+		for (double c : p) {
+			// also rejects overflowed and NaN coefficients
+			if (!(Math.abs(c) <= 1 << MAX_GROWTH_BITS)) {
+				return null;
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Evaluates r, which agrees with the polynomial at the points under the node
+	 * at the given level and index, at those points.
+	 */
+	private static void descend(double[][][] tree, int level, int index, double[] r, float[] xs, float[] out,
+			int count) {
+		double[] node = tree[level][index];
+		long span = (long) LEAF_SIZE << level;
+		int start = (int) (index * span);
+		int end = (int) Math.min(count, start + span);
+		if (level > 0 && end - start < Polynomial.MULTIPOINT_THRESHOLD && (node == null || r.length > 2 * span)) {
+			horner(r, xs, out, start, end);
+			return;
+		}
+
+		if (node != null && r.length >= node.length) {
+			r = PolynomialDivision.remainder(r, node);
+		}
+		if (level == 0) {
+			horner(r, xs, out, start, end);
+			return;
+		}
+
+		int left = 2 * index;
+		descend(tree, level - 1, left, r, xs, out, count);
+		if (left + 1 < tree[level - 1].length) {
+			descend(tree, level - 1, left + 1, r, xs, out, count);
+		}
+	}
+
+	/**
+	 * Evaluates r at the points from start to end - 1 with Horner's scheme in
+	 * double, a block of points at a time as in Horner.evaluateDense.
+	 */
+	private static void horner(double[] r, float[] xs, float[] out, int start, int end) {
+		double[] values = new double[Math.min(end - start, Horner.BLOCK)];
+		for (int from = start; from < end; from += Horner.BLOCK) {
+			int n = Math.min(end - from, Horner.BLOCK);
+			java.util.Arrays.fill(values, 0, n, r.length > 0 ? r[r.length - 1] : 0);
+			for (int i = r.length - 2; i >= 0; i--) {
+				double c = r[i];
+				for (int k = 0; k < n; k++) {
+					values[k] = values[k] * xs[from + k] + c;
+				}
+			}
+			for (int k = 0; k < n; k++) {
+				out[from + k] = (float) values[k];
+			}
+		}
+	}
+}
@@ -0,0 +1,396 @@
+package poly;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * This class implements sparse polynomials in several variables x0, x1, ...
+ * Each monomial, that is each vector of exponents, is packed into a single
+ * long: the long is cut into one field per variable, x0 in the highest one, so
+ * that comparing packed monomials compares exponent vectors in lexicographic
+ * order, and multiplying monomials is adding longs. The highest bit of each
+ * field is a guard bit, always zero in a valid monomial, which a product sets
+ * when an exponent overflows its field; the largest exponent is therefore
+ * maxExponent(variables), for instance 2^31 - 1 for one or two variables,
+ * 2^20 - 1 for three and 2^15 - 1 for four.
+ *
+ * A polynomial is stored as two parallel arrays, of packed monomials in
+ * ascending order and of their non-zero coefficients, so that sums are merges
+ * of sorted arrays. Products accumulate the partial products into a
+ * LongFloatMap, an open-addressing hash map from packed monomials to
+ * coefficients, so that no object is created per term.
+ *
+ * @author runb-cs112
+ *
+ */
+public class MultivariatePolynomial {
+
+	/**
+	 * Largest number of variables.
+	 */
+	public static final int MAX_VARIABLES = 16;
+
+	/**
+	 * Number of variables.
+	 */
+	final int variables;
+
+	/**
+	 * Packed monomials, in ascending order.
+	 */
+	final long[] monomials;
+
+	/**
+	 * Coefficients, non-zero, in the order of monomials.
+	 */
+	final float[] coeffs;
+
+	/**
+	 * Initializes this polynomial with arrays which are used as is.
+	 */
+	private MultivariatePolynomial(int variables, long[] monomials, float[] coeffs) {
+		this.variables = variables;
+		this.monomials = monomials;
+		this.coeffs = coeffs;
+	}
+
+	/**
+	 * Returns the number of bits of the field of each variable.
+	 */
+	static int fieldBits(int variables) {
+		return Math.min(32, 64 / variables);
+	}
+
+	/**
+	 * Returns the largest exponent of a variable in a polynomial with the given
+	 * number of variables.
+	 *
+	 * @param variables Number of variables, from 1 to MAX_VARIABLES
+	 * @return Largest exponent
+	 */
+	public static int maxExponent(int variables) {
+		checkVariables(variables);
+		return (int) ((1L << (fieldBits(variables) - 1)) - 1);
+	}
+
+	private static void checkVariables(int variables) {
+		if (variables < 1 || variables > MAX_VARIABLES) {
+			throw new IllegalArgumentException("number of variables " + variables + " not in [1, " + MAX_VARIABLES + "]");
+		}
+	}
+
+	/**
+	 * Returns the mask of the guard bits of all fields.
+	 */
+	private static long guardMask(int variables) {
+		int bits = fieldBits(variables);
+		long mask = 0;
+		for (int v = 0; v < variables; v++) {
+			mask |= 1L << ((variables - 1 - v) * bits + bits - 1);
+		}
+		return mask;
+	}
+
+	/**
+	 * Packs an exponent vector.
+	 */
+	private static long pack(int variables, int[] exponents) {
+		if (exponents.length != variables) {
+			throw new IllegalArgumentException(exponents.length + " exponents for " + variables + " variables");
+		}
+		int bits = fieldBits(variables);
+		int max = maxExponent(variables);
+		long monomial = 0;
+		for (int v = 0; v < variables; v++) {
+			if (exponents[v] < 0 || exponents[v] > max) {
+				throw new IllegalArgumentException("exponent " + exponents[v] + " not in [0, " + max + "]");
+			}
+			monomial |= (long) exponents[v] << ((variables - 1 - v) * bits);
+		}
+		return monomial;
+	}
+
+	/**
+	 * Builds a polynomial from its terms. Terms with the same exponents are
+	 * added up, and zero coefficients are dropped.
+	 *
+	 * @param variables Number of variables, from 1 to MAX_VARIABLES
+	 * @param coeffs Coefficients of the terms
+	 * @param exponents Exponents of the terms, exponents[i][v] being the
+	 *                  exponent of xv in term i
+	 * @return The polynomial
+	 * @throws IllegalArgumentException If the number of variables, the number
+	 *                                  of exponents of a term or an exponent is
+	 *                                  out of range
+	 */
+	public static MultivariatePolynomial of(int variables, float[] coeffs, int[][] exponents) {
+		checkVariables(variables);
+		if (coeffs.length != exponents.length) {
+			throw new IllegalArgumentException(coeffs.length + " coefficients for " + exponents.length + " terms");
+		}
+		LongFloatMap terms = new LongFloatMap(coeffs.length);
+		for (int i = 0; i < coeffs.length; i++) {
+			terms.add(pack(variables, exponents[i]), coeffs[i]);
+		}
+		return fromMap(variables, terms);
+	}
+
+	/**
+	 * Builds a polynomial from the non-zero entries of a map from packed
+	 * monomials to coefficients.
+	 */
+	private static MultivariatePolynomial fromMap(int variables, LongFloatMap terms) {
+		long[] monomials = terms.sortedKeys();
+		float[] coeffs = new float[monomials.length];
+		for (int i = 0; i < monomials.length; i++) {
+			coeffs[i] = terms.get(monomials[i]);
+		}
+		return new MultivariatePolynomial(variables, monomials, coeffs);
+	}
+
+	/**
+	 * Reads a polynomial from an input stream (file or keyboard). The storage
+	 * format of the polynomial is one term per line, a coefficient followed by
+	 * the exponents of the variables:
+	 *
+	 * <pre>
+	 *     <coeff> <exponent of x0> <exponent of x1> ...
+	 * </pre>
+	 *
+	 * in any order. For example, with two variables:
+	 *
+	 * <pre>
+	 *      4 2 1
+	 *     -2 0 3
+	 *      3 0 0
+	 * </pre>
+	 *
+	 * represents the polynomial 4 * x0^2 * x1 - 2 * x1^3 + 3.
+	 *
+	 * @param sc Scanner from which a polynomial is to be read
+	 * @param variables Number of variables, from 1 to MAX_VARIABLES
+	 * @throws IOException If there is any input error in reading the polynomial
+	 * @return The polynomial
+	 */
+	public static MultivariatePolynomial read(Scanner sc, int variables) throws IOException {
+		checkVariables(variables);
+		LongFloatMap terms = new LongFloatMap(16);
+		int[] exponents = new int[variables];
+		while (sc.hasNextLine()) {
+			Scanner scLine = new Scanner(sc.nextLine());
+			float coeff = scLine.nextFloat();
+			for (int v = 0; v < variables; v++) {
+				exponents[v] = scLine.nextInt();
+			}
+			terms.add(pack(variables, exponents), coeff);
+			scLine.close();
+		}
+		return fromMap(variables, terms);
+	}
+
+	/**
+	 * Returns the number of variables of this polynomial.
+	 *
+	 * @return Number of variables
+	 */
+	public int variables() {
+		return variables;
+	}
+
+	/**
+	 * Returns the number of terms of this polynomial.
+	 *
+	 * @return Number of terms, 0 for zero
+	 */
+	public int terms() {
+		return coeffs.length;
+	}
+
+	/**
+	 * Returns the coefficient of a term, terms being in lexicographic order of
+	 * their exponent vectors.
+	 *
+	 * @param i Index of the term, in [0, terms())
+	 * @return Coefficient
+	 */
+	public float coeff(int i) {
+		return coeffs[i];
+	}
+
+	/**
+	 * Returns the exponent of a variable in a term.
+	 *
+	 * @param i Index of the term, in [0, terms())
+	 * @param v Variable, in [0, variables())
+	 * @return Exponent of xv in term i
+	 */
+	public int exponent(int i, int v) {
+		int bits = fieldBits(variables);
+		return (int) ((monomials[i] >>> ((variables - 1 - v) * bits)) & ((1L << bits) - 1));
+	}
+
+	private void checkSameVariables(MultivariatePolynomial other) {
+		if (other.variables != variables) {
+			throw new IllegalArgumentException(variables + " and " + other.variables + " variables");
+		}
+	}
+
+	/**
+	 * Returns the sum of this polynomial and another one - DOES NOT change
+	 * either of them.
+	 *
+	 * @param other Polynomial to add, with the same number of variables
+	 * @return A new polynomial which is the sum of both
+	 * @throws IllegalArgumentException If the numbers of variables differ
+	 */
+	public MultivariatePolynomial add(MultivariatePolynomial other) {
+		checkSameVariables(other);
+		long[] monomials = new long[this.monomials.length + other.monomials.length];
+		float[] coeffs = new float[monomials.length];
+		int i = 0, j = 0, n = 0;
+		while (i < this.monomials.length || j < other.monomials.length) {
+			long monomial;
+			float coeff;
+			if (j == other.monomials.length || i < this.monomials.length && this.monomials[i] < other.monomials[j]) {
+				monomial = this.monomials[i];
+				coeff = this.coeffs[i++];
+			} else if (i == this.monomials.length || other.monomials[j] < this.monomials[i]) {
+				monomial = other.monomials[j];
+				coeff = other.coeffs[j++];
+			} else {
+				monomial = this.monomials[i];
+				coeff = this.coeffs[i++] + other.coeffs[j++];
+			}
+			if (coeff != 0) {
+				monomials[n] = monomial;
+				coeffs[n++] = coeff;
+			}
+		}
+		return new MultivariatePolynomial(variables, Arrays.copyOf(monomials, n),
+				Arrays.copyOf(coeffs, n));
+	}
+
+	/**
+	 * Returns the product of this polynomial and another one - DOES NOT change
+	 * either of them. The partial products are accumulated in a hash map from
+	 * packed monomials to coefficients, in the order of the terms of this
+	 * polynomial, then of the other one.
+	 *
+	 * @param other Polynomial to multiply by, with the same number of variables
+	 * @return A new polynomial which is the product of both
+	 * @throws IllegalArgumentException If the numbers of variables differ
+	 * @throws ArithmeticException If an exponent of the product exceeds
+	 *                             maxExponent(variables)
+	 */
+	public MultivariatePolynomial multiply(MultivariatePolynomial other) {
+		checkSameVariables(other);
+		long guard = guardMask(variables);
+		// the product has at least n + m - 1 monomials, and usually far fewer
+		// than the n * m partial products, so the map starts small and grows
+		LongFloatMap terms = new LongFloatMap(monomials.length + other.monomials.length);
+		for (int i = 0; i < monomials.length; i++) {
+			long mi = monomials[i];
+			float ci = coeffs[i];
+			for (int j = 0; j < other.monomials.length; j++) {
+				long monomial = mi + other.monomials[j];
+				if ((monomial & guard) != 0) {
+					throw new ArithmeticException("exponent of product exceeds " + maxExponent(variables));
+				}
+				terms.add(monomial, ci * other.coeffs[j]);
+			}
+		}
+		return fromMap(variables, terms);
+	}
+
+	/**
+	 * Evaluates this polynomial at a given point.
+	 *
+	 * @param point Values of the variables, point[v] being the value of xv
+	 * @return Value of this polynomial at the point
+	 * @throws IllegalArgumentException If point does not have one value per
+	 *                                  variable
+	 */
+	public float evaluate(float[] point) {
+		if (point.length != variables) {
+			throw new IllegalArgumentException(point.length + " values for " + variables + " variables");
+		}
+		float[] out = new float[1];
+		evaluateAll(point, out, 1);
+		return out[0];
+	}
+
+	/**
+	 * Evaluates this polynomial at many points at once. Points are processed in
+	 * blocks of Horner.BLOCK, and the exponents of each term are unpacked once
+	 * per block.
+	 *
+	 * @param points Values of the variables at the points, one point after the
+	 *               other: points[p * variables() + v] is the value of xv at
+	 *               point p
+	 * @param out Array in which the value at point p is stored at index p, with
+	 *            room for points.length / variables() values
+	 * @throws IllegalArgumentException If points.length is not a multiple of
+	 *                                  variables(), or out is too short
+	 */
+	public void evaluateAll(float[] points, float[] out) {
+		if (points.length % variables != 0) {
+			throw new IllegalArgumentException(points.length + " values for " + variables + " variables");
+		}
+		int count = points.length / variables;
+		if (out.length < count) {
+			throw new IllegalArgumentException("output array shorter than number of points");
+		}
+		evaluateAll(out == points ? points.clone() : points, out, count);
+	}
+
+	private void evaluateAll(float[] points, float[] out, int count) {
+		int[] exponents = new int[variables];
+		for (int start = 0; start < count; start += Horner.BLOCK) {
+			int end = Math.min(count, start + Horner.BLOCK);
+			Arrays.fill(out, start, end, 0);
+			for (int i = 0; i < coeffs.length; i++) {
+				for (int v = 0; v < variables; v++) {
+					exponents[v] = exponent(i, v);
+				}
+				float c = coeffs[i];
+				for (int p = start; p < end; p++) {
+					double term = c;
+					for (int v = 0; v < variables; v++) {
+						if (exponents[v] != 0) {
+							term = Horner.multiplyByPower(term, points[p * variables + v], exponents[v]);
+						}
+					}
+					out[p] += term;
+				}
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		if (coeffs.length == 0) {
+			return "0";
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = coeffs.length - 1; i >= 0; i--) {
+			if (i < coeffs.length - 1) {
+				sb.append(" + ");
+			}
+			sb.append(coeffs[i]);
+			for (int v = 0; v < variables; v++) {
+				int e = exponent(i, v);
+				if (e > 0) {
+					sb.append('x').append(v);
+					if (e > 1) {
+						sb.append('^').append(e);
+					}
+				}
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -28,6 +28,9 @@ public class Node {
 	 */
 	public Node(float coeff, int degree, Node next) {
 		term = new Term(coeff, degree);
+		if (PolynomialMetrics.ENABLED) {
+			PolynomialMetrics.nodeCreated();
+		}
 		this.next = next;
 	}
 }
@@ -0,0 +1,284 @@
+package poly;
+
+/**
+ * This class implements exact convolution of integer coefficient arrays with
+ * number-theoretic transforms, the analog of the FFT over the fields Z/mZ for
+ * the primes m in PRIMES, each of the form c * 2^k + 1 with primitive root 3.
+ *
+ * A product modulo one of these primes takes one transform per operand and an
+ * inverse transform. For any other modulus below 2^31, and for products over
+ * the integers, the product is computed modulo all three primes and the
+ * residues are combined with the Chinese remainder theorem (Garner's
+ * algorithm); the product of the primes exceeds 2^85, which covers every
+ * coefficient of a product of up to 2^23 terms reduced modulo p < 2^31.
+ *
+ * @author runb-cs112
+ *
+ */
+class NumberTheoreticTransform {
+
+	/**
+	 * Transform primes: 119 * 2^23 + 1, 5 * 2^25 + 1 and 7 * 2^26 + 1.
+	 */
+	static final int[] PRIMES = { 998244353, 167772161, 469762049 };
+
+	/**
+	 * Primitive root of each prime.
+	 */
+	static final int ROOT = 3;
+
+	/**
+	 * Largest transform length supported by all three primes.
+	 */
+	static final int MAX_LENGTH = 1 << 23;
+
+	/**
+	 * Shorter operand length below which schoolbook multiplication is used.
+	 */
+	static final int THRESHOLD = 64;
+
+	/**
+	 * Inverse of PRIMES[0] modulo PRIMES[1].
+	 */
+	private static final long INV01 = pow(PRIMES[0] % PRIMES[1], PRIMES[1] - 2, PRIMES[1]);
+
+	/**
+	 * Inverse of PRIMES[0] * PRIMES[1] modulo PRIMES[2].
+	 */
+	private static final long INV012 = pow((long) PRIMES[0] * PRIMES[1] % PRIMES[2], PRIMES[2] - 2, PRIMES[2]);
+
+	/**
+	 * Multiplies two polynomials modulo p.
+	 *
+	 * @param a Coefficients of the first polynomial, in [0, p)
+	 * @param b Coefficients of the second polynomial, in [0, p)
+	 * @param p Modulus, at least 2 and less than 2^31
+	 * @return Coefficients of the product, in [0, p), of length a.length +
+	 *         b.length - 1 (0 if either is empty)
+	 */
+	static int[] multiply(int[] a, int[] b, int p) {
+		if (a.length == 0 || b.length == 0) {
+			return new int[0];
+		}
+		if (Math.min(a.length, b.length) < THRESHOLD) {
+			return schoolbook(a, b, p);
+		}
+		for (int m : PRIMES) {
+			if (m == p) {
+				return convolve(a, b, p);
+			}
+		}
+
+		int[][] residues = residues(a, b);
+		int[] c = new int[residues[0].length];
+		long m0 = PRIMES[0] % p;
+		long m01 = (long) PRIMES[0] * PRIMES[1] % p;
+		for (int i = 0; i < c.length; i++) {
+			long[] t = garner(residues[0][i], residues[1][i], residues[2][i]);
+			c[i] = (int) ((t[0] + m0 * t[1] % p + m01 * t[2] % p) % p);
+		}
+		return c;
+	}
+
+	/**
+	 * Multiplies two polynomials with integer coefficients exactly.
+	 *
+	 * @param a Coefficients of the first polynomial
+	 * @param b Coefficients of the second polynomial
+	 * @return Coefficients of the product
+	 * @throws ArithmeticException If a coefficient of the product may not fit
+	 *                             in a long
+	 */
+	static long[] multiplyExact(long[] a, long[] b) {
+		if (a.length == 0 || b.length == 0) {
+			return new long[0];
+		}
+		double bound = Math.min(a.length, b.length) * maxAbs(a) * maxAbs(b);
+		if (bound >= 0x1p62) {
+			throw new ArithmeticException("integer product may overflow a long");
+		}
+
+		int[][] inputs = new int[6][];
+		for (int k = 0; k < 3; k++) {
+			inputs[2 * k] = reduce(a, PRIMES[k]);
+			inputs[2 * k + 1] = reduce(b, PRIMES[k]);
+		}
+		long m01 = (long) PRIMES[0] * PRIMES[1];
+		long m012 = m01 * PRIMES[2]; // wraps, equal to the product modulo 2^64
+		int[] r0 = convolve(inputs[0], inputs[1], PRIMES[0]);
+		int[] r1 = convolve(inputs[2], inputs[3], PRIMES[1]);
+		int[] r2 = convolve(inputs[4], inputs[5], PRIMES[2]);
+
+		long[] c = new long[r0.length];
+		for (int i = 0; i < c.length; i++) {
+			long[] t = garner(r0[i], r1[i], r2[i]);
+			// the value is t0 + m0 t1 + m01 t2 in [0, m012), which is below 2^62
+			// for a positive product and above m012 - 2^62 for a negative one
+			long value = t[0] + PRIMES[0] * t[1] + m01 * t[2];
+			c[i] = t[2] < PRIMES[2] / 2 ? value : value - m012;
+		}
+		return c;
+	}
+
+	/**
+	 * Returns the digits (t0, t1, t2) of the mixed radix representation
+	 * x = t0 + m0 t1 + m0 m1 t2 of the x in [0, m0 m1 m2) with the given
+	 * residues modulo the three primes.
+	 */
+	private static long[] garner(int r0, int r1, int r2) {
+		long m0 = PRIMES[0], m1 = PRIMES[1], m2 = PRIMES[2];
+		long t1 = ((r1 - r0 % m1 + m1) % m1) * INV01 % m1;
+		long x01 = (r0 + m0 % m2 * t1) % m2;
+		long t2 = ((r2 - x01 + m2) % m2) * INV012 % m2;
+		return new long[] { r0, t1, t2 };
+	}
+
+	/**
+	 * Computes the product of a and b modulo each of the three primes.
+	 */
+	private static int[][] residues(int[] a, int[] b) {
+		int[][] residues = new int[3][];
+		for (int k = 0; k < 3; k++) {
+			int m = PRIMES[k];
+			residues[k] = convolve(reduce(a, m), reduce(b, m), m);
+		}
+		return residues;
+	}
+
+	private static int[] reduce(int[] a, int m) {
+		int[] r = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			r[i] = a[i] % m;
+		}
+		return r;
+	}
+
+	private static int[] reduce(long[] a, int m) {
+		int[] r = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			long v = a[i] % m;
+			r[i] = (int) (v < 0 ? v + m : v);
+		}
+		return r;
+	}
+
+	private static double maxAbs(long[] a) {
+		double max = 0;
+		for (long v : a) {
+			max = Math.max(max, Math.abs((double) v));
+		}
+		return max;
+	}
+
+	/**
+	 * Schoolbook multiplication modulo p.
+	 */
+	private static int[] schoolbook(int[] a, int[] b, int p) {
+		long[] c = new long[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++) {
+			long ai = a[i];
+			if (ai != 0) {
+				for (int j = 0; j < b.length; j++) {
+					c[i + j] = (c[i + j] + ai * b[j]) % p;
+				}
+			}
+		}
+		int[] result = new int[c.length];
+		for (int i = 0; i < c.length; i++) {
+			result[i] = (int) c[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Multiplies two polynomials modulo a transform prime m, with forward
+	 * transforms of both operands, a pointwise product and an inverse
+	 * transform.
+	 */
+	private static int[] convolve(int[] a, int[] b, int m) {
+		int length = a.length + b.length - 1;
+		int n = Integer.highestOneBit(length);
+		if (n < length) {
+			n <<= 1;
+		}
+		if (n > MAX_LENGTH) {
+			throw new IllegalArgumentException("product of " + length + " terms is too long for the transform");
+		}
+
+		int[] fa = new int[n];
+		int[] fb = new int[n];
+		System.arraycopy(a, 0, fa, 0, a.length);
+		System.arraycopy(b, 0, fb, 0, b.length);
+		transform(fa, m, false);
+		transform(fb, m, false);
+		for (int i = 0; i < n; i++) {
+			fa[i] = (int) ((long) fa[i] * fb[i] % m);
+		}
+		transform(fa, m, true);
+
+		long scale = pow(n, m - 2, m);
+		int[] c = new int[length];
+		for (int i = 0; i < length; i++) {
+			c[i] = (int) (fa[i] * scale % m);
+		}
+		return c;
+	}
+
+	/**
+	 * In-place iterative radix-2 transform modulo m of an array whose length is
+	 * a power of two dividing m - 1. The inverse transform is not scaled by
+	 * 1 / n.
+	 */
+	static void transform(int[] a, int m, boolean inverse) {
+		int n = a.length;
+		for (int i = 1, j = 0; i < n; i++) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				int t = a[i];
+				a[i] = a[j];
+				a[j] = t;
+			}
+		}
+
+		int[] twiddles = new int[n / 2];
+		for (int len = 2; len <= n; len <<= 1) {
+			int half = len / 2;
+			long w = pow(ROOT, (m - 1) / len, m);
+			if (inverse) {
+				w = pow(w, m - 2, m);
+			}
+			twiddles[0] = 1;
+			for (int j = 1; j < half; j++) {
+				twiddles[j] = (int) (twiddles[j - 1] * w % m);
+			}
+			for (int i = 0; i < n; i += len) {
+				for (int j = 0; j < half; j++) {
+					int u = a[i + j];
+					int v = (int) ((long) a[i + j + half] * twiddles[j] % m);
+					int sum = u + v;
+					a[i + j] = sum >= m ? sum - m : sum;
+					int difference = u - v;
+					a[i + j + half] = difference < 0 ? difference + m : difference;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns base^exponent modulo m.
+	 */
+	static long pow(long base, long exponent, long m) {
+		long result = 1;
+		base %= m;
+		for (; exponent > 0; exponent >>= 1, base = base * base % m) {
+			if ((exponent & 1) != 0) {
+				result = result * base % m;
+			}
+		}
+		return result;
+	}
+}
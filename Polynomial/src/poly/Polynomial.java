@@ -11,6 +11,14 @@ import java.util.Scanner;
  */
 public class Polynomial {
 
+	/**
+	 * Number of values and degree from which evaluateMultipoint uses a
+	 * subproduct tree instead of Horner's scheme. Measured on one core against
+	 * evaluateAll, with points the tree can use, the two break even at about
+	 * 262144, and the tree is twice as fast at 524288.
+	 */
+	public static final int MULTIPOINT_THRESHOLD = 262144;
+
 	/**
 	 * Reads a polynomial from an input stream (file or keyboard). The storage
 	 * format of the polynomial is:
@@ -63,6 +71,16 @@ public class Polynomial {
 	 *         returned node is the front of the result polynomial
 	 */
 	public static Node add(Node poly1, Node poly2) {
+		if (PolynomialMetrics.ENABLED) {
+			long start = System.nanoTime(), nodes = PolynomialMetrics.nodes();
+			Node sum = sum(poly1, poly2);
+			PolynomialMetrics.record(PolynomialMetrics.ADD, start, nodes, poly1, poly2, sum);
+			return sum;
+		}
+		return sum(poly1, poly2);
+	}
+
+	private static Node sum(Node poly1, Node poly2) {
 		Node head = null;
 		Node tail = null;
 		Node next;
@@ -113,40 +131,160 @@ public class Polynomial {
 	 * polynomials. The returned polynomial MUST have all new nodes. In other words,
 	 * none of the nodes of the input polynomials can be in the result.
 	 * 
+	 * The product is computed by PolynomialMultiplier, which picks a term by term,
+	 * schoolbook, Karatsuba or FFT product from the sizes and densities of the
+	 * inputs.
+	 * 
 	 * @param poly1 First input polynomial (front of polynomial linked list)
 	 * @param poly2 Second input polynomial (front of polynomial linked list)
 	 * @return A new polynomial which is the tail of the input polynomials - the
 	 *         returned node is the front of the result polynomial
 	 */
 	public static Node multiply(Node poly1, Node poly2) {
-		Node head = null;
-		Node polyHead = poly2;
-
-		while (poly1 != null) {
-			poly2 = polyHead;
-			
-			Node head1 = null;
-			Node tail1 = null;
-
-			while (poly2 != null) {
-				Node next = new Node(poly1.term.coeff * poly2.term.coeff, poly1.term.degree + poly2.term.degree, null);
-
-				if (next.term.coeff != 0) {
-					if (tail1 != null) {
-						tail1 = tail1.next = next;
-					} else {
-						head1 = tail1 = next;
-					}
-				}
+		if (PolynomialMetrics.ENABLED) {
+			long start = System.nanoTime(), nodes = PolynomialMetrics.nodes();
+			Node product = PolynomialMultiplier.multiply(poly1, poly2);
+			PolynomialMetrics.record(PolynomialMetrics.MULTIPLY, start, nodes, poly1, poly2, product);
+			return product;
+		}
+		return PolynomialMultiplier.multiply(poly1, poly2);
+	}
 
-				poly2 = poly2.next;
-			}
-			
-			head = Polynomial.add(head, head1);
-			poly1 = poly1.next;
+	/**
+	 * Returns the product of two polynomials, computed in parallel - DOES NOT
+	 * change either of the input polynomials. The returned polynomial MUST have
+	 * all new nodes. The result is identical to that of multiply.
+	 * 
+	 * @param poly1 First input polynomial (front of polynomial linked list)
+	 * @param poly2 Second input polynomial (front of polynomial linked list)
+	 * @return A new polynomial which is the product of the input polynomials
+	 */
+	public static Node parallelMultiply(Node poly1, Node poly2) {
+		return PolynomialMultiplier.parallelMultiply(poly1, poly2, PolynomialMultiplier.PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Returns the product of two polynomials, computed in parallel by tasks of
+	 * at most about threshold partial products each - DOES NOT change either of
+	 * the input polynomials. The returned polynomial MUST have all new nodes. The
+	 * result is identical to that of multiply.
+	 * 
+	 * @param poly1     First input polynomial (front of polynomial linked list)
+	 * @param poly2     Second input polynomial (front of polynomial linked list)
+	 * @param threshold Number of partial products below which work is not split
+	 * @return A new polynomial which is the product of the input polynomials
+	 * @throws IllegalArgumentException If threshold is not positive
+	 */
+	public static Node parallelMultiply(Node poly1, Node poly2, int threshold) {
+		return PolynomialMultiplier.parallelMultiply(poly1, poly2, threshold);
+	}
+
+	/**
+	 * Returns the quotient of the division of a polynomial by another one - DOES
+	 * NOT change either of the input polynomials. The returned polynomial MUST
+	 * have all new nodes.
+	 * 
+	 * Division is done in double precision by PolynomialDivision, which computes
+	 * long quotients by long divisors from a Newton iteration reciprocal in a
+	 * constant number of multiplications. Coefficients at the level of float
+	 * rounding noise are dropped. The Newton quotient is checked against the
+	 * dividend, and long division is used when its rounding errors, which grow
+	 * with the powers of the roots of the reversed divisor, are too large. Long
+	 * division loses accuracy in turn when the quotient is large; use
+	 * ModularPolynomial for exact results.
+	 * 
+	 * @param poly1 Dividend (front of polynomial linked list)
+	 * @param poly2 Divisor (front of polynomial linked list)
+	 * @return A new polynomial q such that poly1 = q * poly2 + r, with the degree
+	 *         of r less than that of poly2
+	 * @throws ArithmeticException If poly2 is zero, or the quotient exceeds the
+	 *                             range of floats
+	 */
+	public static Node divide(Node poly1, Node poly2) {
+		return toNode(PolynomialDivision.divideRounded(toDoubles(poly1), divisor(poly2))[0]);
+	}
+
+	/**
+	 * Returns the remainder of the division of a polynomial by another one -
+	 * DOES NOT change either of the input polynomials. The returned polynomial
+	 * MUST have all new nodes. See divide.
+	 * 
+	 * @param poly1 Dividend (front of polynomial linked list)
+	 * @param poly2 Divisor (front of polynomial linked list)
+	 * @return A new polynomial r such that poly1 = q * poly2 + r, with the degree
+	 *         of r less than that of poly2
+	 * @throws ArithmeticException If poly2 is zero, or the quotient exceeds the
+	 *                             range of floats
+	 */
+	public static Node remainder(Node poly1, Node poly2) {
+		return toNode(PolynomialDivision.divideRounded(toDoubles(poly1), divisor(poly2))[1]);
+	}
+
+	/**
+	 * Returns the greatest common divisor of two polynomials - DOES NOT change
+	 * either of the input polynomials. The returned polynomial MUST have all new
+	 * nodes.
+	 * 
+	 * The coefficients are taken as exact, so a factor such as x - 0.1, which
+	 * float coefficients only approximate, is common to two products only if
+	 * they round the same way. The degree of the divisor is found exactly, from
+	 * the residues of the coefficients modulo primes as in ModularPolynomial,
+	 * and the divisor itself by Euclid's algorithm in double precision, down to
+	 * the remainder of that degree. The remainder sequence is ill-conditioned,
+	 * so beyond small degrees it may lose the divisor to rounding errors, which
+	 * is reported rather than returning a polynomial that does not divide the
+	 * inputs. The half-GCD algorithm is even less stable over floating point
+	 * numbers; it is used by ModularPolynomial.gcd, for exact coefficients.
+	 * 
+	 * @param poly1 First input polynomial (front of polynomial linked list)
+	 * @param poly2 Second input polynomial (front of polynomial linked list)
+	 * @return A new monic polynomial dividing both input polynomials, of the
+	 *         highest degree, or null if both are zero
+	 * @throws ArithmeticException If rounding errors exceed the divisor, which
+	 *                             then does not divide both inputs within
+	 *                             PolynomialDivision.GCD_TOLERANCE
+	 */
+	public static Node gcd(Node poly1, Node poly2) {
+		return toNode(PolynomialDivision.gcd(toDoubles(poly1), toDoubles(poly2)));
+	}
+
+	/**
+	 * Returns the coefficients of a divisor, indexed by degree and trimmed.
+	 */
+	private static double[] divisor(Node poly) {
+		double[] b = toDoubles(poly);
+		if (b.length == 0) {
+			throw new ArithmeticException("division by zero polynomial");
 		}
+		return b;
+	}
 
-		return head;
+	/**
+	 * Returns the coefficients of a polynomial in double, indexed by degree and
+	 * trimmed.
+	 */
+	private static double[] toDoubles(Node poly) {
+		float[] coeffs = DensePolynomial.fromNode(poly).coeffs;
+		double[] d = new double[coeffs.length];
+		for (int i = 0; i < coeffs.length; i++) {
+			d[i] = coeffs[i];
+		}
+		return d;
+	}
+
+	/**
+	 * Returns a new polynomial linked list, in ascending order of degrees, with
+	 * one node for each coefficient that is non-zero once rounded to float.
+	 */
+	private static Node toNode(double[] coeffs) {
+		Node poly = null;
+		for (int i = coeffs.length - 1; i >= 0; i--) {
+			float c = (float) coeffs[i];
+			if (c != 0) {
+				poly = new Node(c, i, poly);
+			}
+		}
+		return poly;
 	}
 
 	/**
@@ -157,6 +295,16 @@ public class Polynomial {
 	 * @return Value of polynomial p at x
 	 */
 	public static float evaluate(Node poly, float x) {
+		if (PolynomialMetrics.ENABLED) {
+			long start = System.nanoTime(), nodes = PolynomialMetrics.nodes();
+			float value = value(poly, x);
+			PolynomialMetrics.record(PolynomialMetrics.EVALUATE, start, nodes, poly, null, null);
+			return value;
+		}
+		return value(poly, x);
+	}
+
+	private static float value(Node poly, float x) {
 		float value = 0;
 
 		while (poly != null) {
@@ -168,20 +316,144 @@ public class Polynomial {
 	}
 
 	/**
-	 * Returns string representation of a polynomial
+	 * Compiles a polynomial into an evaluator with its coefficients flattened
+	 * into arrays, for repeated evaluation (see CompiledPolynomial).
+	 * 
+	 * @param poly Polynomial (front of linked list) to be compiled
+	 * @return Evaluator for poly, which may be shared between threads
+	 */
+	public static CompiledPolynomial compile(Node poly) {
+		return CompiledPolynomial.compile(poly);
+	}
+
+	/**
+	 * Evaluates a polynomial at many values at once, with Horner's scheme. Dense
+	 * polynomials (see DensePolynomial.isDense) are evaluated from their
+	 * coefficient array, and sparse ones with the gap-aware form of Horner's
+	 * scheme, which multiplies by x to the power of the degree gap between
+	 * consecutive terms. The polynomial is compiled first; to evaluate the same
+	 * polynomial repeatedly, call compile once and keep the result.
+	 * 
+	 * The values are computed in float and may differ from those of evaluate, which
+	 * raises x to each degree in double, in the last bits.
+	 * 
+	 * @param poly Polynomial (front of linked list) to be evaluated
+	 * @param xs   Values at which evaluation is to be done
+	 * @param out  Array in which the value of poly at xs[i] is stored at index i,
+	 *             at least as long as xs
+	 * @throws IllegalArgumentException If out is shorter than xs
+	 */
+	public static void evaluateAll(Node poly, float[] xs, float[] out) {
+		compile(poly).evaluateAll(xs, out);
+	}
+
+	/**
+	 * Evaluates a polynomial at many values at once with a subproduct tree (see
+	 * MultipointEvaluator), which takes O(M(n) log n) time for n values and a
+	 * polynomial of degree about n, where M(n) is the cost of multiplying two
+	 * polynomials of degree n, instead of the O(n^2) time of evaluateAll.
+	 * 
+	 * Below MULTIPOINT_THRESHOLD values or degrees this falls back to
+	 * evaluateAll. The tree is only accurate in floating point for groups of
+	 * values whose products of (x - value) have small coefficients, which in
+	 * practice means values clustered around 0: random values in
+	 * [-0.01, 0.01] use the tree, while values spread over [-0.02, 0.02] or any
+	 * wider interval do not, and are evaluated with evaluateAll at no gain.
+	 * Values are evaluated with Horner's scheme in the groups where the
+	 * products are too large. Either way, each value is within
+	 * 2^-20 times the sum of the absolute values of the terms at that point of
+	 * the exact value.
+	 * 
+	 * @param poly Polynomial (front of linked list) to be evaluated
+	 * @param xs   Values at which evaluation is to be done
+	 * @param out  Array in which the value of poly at xs[i] is stored at index i,
+	 *             at least as long as xs
+	 * @throws IllegalArgumentException If out is shorter than xs
+	 */
+	public static void evaluateMultipoint(Node poly, float[] xs, float[] out) {
+		if (out.length < xs.length) {
+			throw new IllegalArgumentException("output array shorter than input array");
+		}
+
+		if (xs.length >= MULTIPOINT_THRESHOLD && out != xs) {
+			DensePolynomial dense = DensePolynomial.fromNode(poly);
+			if (dense.degree() >= MULTIPOINT_THRESHOLD) {
+				double[] f = new double[dense.coeffs.length];
+				for (int i = 0; i < f.length; i++) {
+					f[i] = dense.coeffs[i];
+				}
+				if (MultipointEvaluator.evaluate(f, xs, out, xs.length)) {
+					return;
+				}
+			}
+		}
+		evaluateAll(poly, xs, out);
+	}
+
+	/**
+	 * Writes the string representation of a polynomial, the same as toString
+	 * returns, to an output. The list is in ascending order of degrees and
+	 * terms are written in descending order, so it is cut into blocks of about
+	 * sqrt(n) nodes: a first pass records the first node of each block, and the
+	 * blocks are then written last to first, each through an array of its nodes
+	 * in reverse. This takes time linear in the number of terms while holding
+	 * only O(sqrt(n)) node references; wrap a Writer in a BufferedWriter to
+	 * stream large polynomials to a file.
 	 * 
 	 * @param poly Polynomial (front of linked list)
-	 * @return String representation, in descending order of degrees
+	 * @param out Output to which the representation is appended
+	 * @throws IOException If the output cannot be written
 	 */
-	public static String toString(Node poly) {
+	public static void write(Node poly, Appendable out) throws IOException {
 		if (poly == null) {
-			return "0";
+			out.append('0');
+			return;
+		}
+
+		int n = 0;
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			n++;
+		}
+		int blockSize = (int) Math.ceil(Math.sqrt(n));
+		Node[] blocks = new Node[(n + blockSize - 1) / blockSize];
+		int i = 0;
+		for (Node ptr = poly; ptr != null; ptr = ptr.next, i++) {
+			if (i % blockSize == 0) {
+				blocks[i / blockSize] = ptr;
+			}
 		}
 
-		String retval = poly.term.toString();
-		for (Node current = poly.next; current != null; current = current.next) {
-			retval = current.term.toString() + " + " + retval;
+		Node[] block = new Node[blockSize];
+		boolean first = true;
+		for (int b = blocks.length - 1; b >= 0; b--) {
+			int size = 0;
+			for (Node ptr = blocks[b]; ptr != null && size < blockSize; ptr = ptr.next) {
+				block[size++] = ptr;
+			}
+			for (int k = size - 1; k >= 0; k--) {
+				if (!first) {
+					out.append(" + ");
+				}
+				out.append(block[k].term.toString());
+				first = false;
+			}
+		}
+	}
+
+	/**
+	 * Returns string representation of a polynomial
+	 * 
+	 * @param poly Polynomial (front of linked list)
+	 * @return String representation, in descending order of degrees
+	 */
+	public static String toString(Node poly) {
+		StringBuilder sb = new StringBuilder();
+		try {
+			write(poly, sb);
+		} catch (IOException e) {
+			// StringBuilder does not throw
+			throw new AssertionError(e);
 		}
-		return retval;
+		return sb.toString();
 	}
 }
@@ -0,0 +1,196 @@
+package poly;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a mutable sum of polynomials, for loops that would
+ * otherwise call Polynomial.add once per step and allocate a new list each
+ * time. Terms, polynomials and products of polynomials are added into a
+ * buffer that is kept across uses, and a new linked list is built only by
+ * toNode.
+ *
+ * Coefficients are added in the order the terms are added, so that adding
+ * polynomials p1, p2, ..., pn gives exactly the coefficients of
+ * add(...add(add(p1, p2), p3)..., pn), and adding the product of two
+ * polynomials gives those of the term by term product. Zero coefficients are
+ * dropped from the result, as by add.
+ *
+ * The buffer is an array of coefficients indexed by degree while the degrees
+ * seen are dense enough, in the sense of DensePolynomial.DENSE_FILL_RATIO, and
+ * otherwise (or for negative degrees) a LongFloatMap from degrees to
+ * coefficients, until the accumulator is cleared.
+ *
+ * @author runb-cs112
+ *
+ */
+public class PolynomialAccumulator {
+
+	/**
+	 * Length up to which the dense buffer may grow whatever the number of terms.
+	 */
+	static final int MIN_DENSE_LENGTH = 1024;
+
+	/**
+	 * Dense buffer, indexed by degree.
+	 */
+	private float[] coeffs = new float[16];
+
+	/**
+	 * Lowest and highest degrees written to the dense buffer since it was last
+	 * cleared.
+	 */
+	private int low = Integer.MAX_VALUE, high = -1;
+
+	/**
+	 * Sparse buffer, by degree, or null while the dense buffer is in use.
+	 */
+	private LongFloatMap terms;
+
+	/**
+	 * Number of terms added since the last clear.
+	 */
+	private long count;
+
+	/**
+	 * Adds a term.
+	 *
+	 * @param coeff Coefficient
+	 * @param degree Degree
+	 */
+	public void add(float coeff, int degree) {
+		count++;
+		if (terms == null && degree >= 0 && degree < coeffs.length) {
+			coeffs[degree] += coeff;
+			low = Math.min(low, degree);
+			high = Math.max(high, degree);
+		} else {
+			reserve(degree, degree, 0);
+			addTerm(coeff, degree);
+		}
+	}
+
+	/**
+	 * Adds a polynomial.
+	 *
+	 * @param poly Polynomial (front of linked list), which is not changed
+	 */
+	public void add(Node poly) {
+		for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+			add(ptr.term.coeff, ptr.term.degree);
+		}
+	}
+
+	/**
+	 * Adds the product of two polynomials, term by term: the products of the
+	 * first term of poly1 with all the terms of poly2, then those of the second
+	 * term of poly1, and so on.
+	 *
+	 * @param poly1 First polynomial (front of linked list), which is not changed
+	 * @param poly2 Second polynomial (front of linked list), which is not changed
+	 */
+	public void addProduct(Node poly1, Node poly2) {
+		if (poly1 == null || poly2 == null) {
+			return;
+		}
+
+		int low1 = Integer.MAX_VALUE, high1 = Integer.MIN_VALUE, low2 = Integer.MAX_VALUE, high2 = Integer.MIN_VALUE;
+		long terms1 = 0, terms2 = 0;
+		for (Node ptr = poly1; ptr != null; ptr = ptr.next, terms1++) {
+			low1 = Math.min(low1, ptr.term.degree);
+			high1 = Math.max(high1, ptr.term.degree);
+		}
+		for (Node ptr = poly2; ptr != null; ptr = ptr.next, terms2++) {
+			low2 = Math.min(low2, ptr.term.degree);
+			high2 = Math.max(high2, ptr.term.degree);
+		}
+		reserve(low1 + low2, high1 + high2, terms1 * terms2);
+
+		count += terms1 * terms2;
+		for (Node ptr1 = poly1; ptr1 != null; ptr1 = ptr1.next) {
+			for (Node ptr2 = poly2; ptr2 != null; ptr2 = ptr2.next) {
+				addTerm(ptr1.term.coeff * ptr2.term.coeff, ptr1.term.degree + ptr2.term.degree);
+			}
+		}
+	}
+
+	/**
+	 * Adds a term to the buffer in use, which has room for its degree.
+	 */
+	private void addTerm(float coeff, int degree) {
+		if (terms != null) {
+			terms.add(degree, coeff);
+		} else {
+			coeffs[degree] += coeff;
+			low = Math.min(low, degree);
+			high = Math.max(high, degree);
+		}
+	}
+
+	/**
+	 * Makes room for terms of degrees in [lowDegree, highDegree], growing the
+	 * dense buffer if the degrees stay dense enough, and switching to the
+	 * sparse buffer otherwise.
+	 */
+	private void reserve(int lowDegree, int highDegree, long added) {
+		if (terms != null) {
+			return;
+		}
+		if (lowDegree >= 0 && highDegree < coeffs.length) {
+			return;
+		}
+		long length = highDegree + 1L;
+		if (lowDegree >= 0 && length <= Math.max(MIN_DENSE_LENGTH, (count + added) / DensePolynomial.DENSE_FILL_RATIO)) {
+			coeffs = Arrays.copyOf(coeffs, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(length, 2L * coeffs.length)));
+			return;
+		}
+
+		terms = new LongFloatMap((int) Math.min(1 << 20, count + added));
+		for (int d = low; d <= high; d++) {
+			if (coeffs[d] != 0) {
+				terms.add(d, coeffs[d]);
+			}
+		}
+		clearDense();
+	}
+
+	/**
+	 * Returns the sum of everything added since the last clear, as a new
+	 * linked list. The accumulator is not changed.
+	 *
+	 * @return Front of the new polynomial linked list, in ascending order of
+	 *         degrees, with one node per non-zero coefficient, or null for zero
+	 */
+	public Node toNode() {
+		Node poly = null;
+		if (terms != null) {
+			long[] degrees = terms.sortedKeys();
+			for (int i = degrees.length - 1; i >= 0; i--) {
+				poly = new Node(terms.get(degrees[i]), (int) degrees[i], poly);
+			}
+			return poly;
+		}
+		for (int d = high; d >= low; d--) {
+			if (coeffs[d] != 0) {
+				poly = new Node(coeffs[d], d, poly);
+			}
+		}
+		return poly;
+	}
+
+	/**
+	 * Removes everything added, keeping the dense buffer for reuse.
+	 */
+	public void clear() {
+		clearDense();
+		terms = null;
+		count = 0;
+	}
+
+	private void clearDense() {
+		if (high >= low) {
+			Arrays.fill(coeffs, low, high + 1, 0);
+		}
+		low = Integer.MAX_VALUE;
+		high = -1;
+	}
+}
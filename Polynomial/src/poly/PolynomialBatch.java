@@ -0,0 +1,343 @@
+package poly;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class runs a batch of polynomial jobs, listed in a manifest file, on a
+ * fixed pool of threads. Each line of the manifest is one job:
+ *
+ * <pre>
+ * add      IN1 IN2 ... OUT
+ * multiply IN1 IN2 ... OUT
+ * evaluate IN OUT X1 X2 ...
+ * </pre>
+ *
+ * where the inputs are polynomial files in the format of Polynomial.read,
+ * relative paths are resolved against the directory of the manifest, and
+ * blank lines and lines starting with # are skipped. add writes the sum of its
+ * inputs and multiply their product to OUT, in the format of
+ * Polynomial.toString; evaluate writes one "x value" line per point. Jobs run
+ * in any order, so no job may read the output of another job of the same
+ * manifest.
+ *
+ * The manifest is read one line at a time, and inputs are read with
+ * PolynomialReader; the terms of the inputs of add are summed as they are
+ * parsed, without building their lists. Memory is bounded by a semaphore:
+ * before a job is queued it takes permits for its estimated heap use,
+ * MEMORY_PER_BYTE times the size of its input files, and it gives them back
+ * when it is done, so that reading the manifest waits while the jobs in
+ * flight would use up the memory budget.
+ *
+ * One line is reported per job, with its time, and a summary at the end.
+ *
+ * @author runb-cs112
+ *
+ */
+public class PolynomialBatch {
+
+	/**
+	 * Estimated heap bytes used by a job per byte of its input files, for the
+	 * nodes built from them and the result.
+	 */
+	static final int MEMORY_PER_BYTE = 8;
+
+	/**
+	 * Unit of the memory permits, in bytes.
+	 */
+	static final int PERMIT_SIZE = 1024;
+
+	/**
+	 * A job of the manifest.
+	 */
+	static class Job {
+
+		/**
+		 * Line number in the manifest.
+		 */
+		int line;
+
+		/**
+		 * Operation, "add", "multiply" or "evaluate".
+		 */
+		String operation;
+
+		/**
+		 * Input files.
+		 */
+		Path[] inputs;
+
+		/**
+		 * Output file.
+		 */
+		Path output;
+
+		/**
+		 * Evaluation points, for evaluate.
+		 */
+		float[] points;
+
+		/**
+		 * Memory permits held by the job.
+		 */
+		int permits;
+	}
+
+	/**
+	 * Number of threads.
+	 */
+	private final int threads;
+
+	/**
+	 * Memory budget, in permits.
+	 */
+	private final int budget;
+
+	/**
+	 * Stream the jobs are reported to.
+	 */
+	private final PrintStream report;
+
+	/**
+	 * Initializes a batch runner.
+	 *
+	 * @param threads Number of jobs run at the same time
+	 * @param memory Heap bytes that the jobs in flight may use, as estimated
+	 *        from the sizes of their inputs; a job estimated to need more runs
+	 *        alone
+	 * @param report Stream the jobs are reported to
+	 */
+	public PolynomialBatch(int threads, long memory, PrintStream report) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads " + threads);
+		}
+		this.threads = threads;
+		this.budget = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memory / PERMIT_SIZE));
+		this.report = report;
+	}
+
+	/**
+	 * Initializes a batch runner with one thread per processor, and half of the
+	 * maximum heap size as memory budget, which reports to System.out.
+	 */
+	public PolynomialBatch() {
+		this(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() / 2, System.out);
+	}
+
+	/**
+	 * Runs the jobs of a manifest, and waits for all of them to finish.
+	 *
+	 * @param manifest Manifest file
+	 * @return Number of jobs that failed
+	 * @throws IOException If the manifest cannot be read
+	 * @throws InterruptedException If interrupted while waiting for the jobs
+	 */
+	public int run(Path manifest) throws IOException, InterruptedException {
+		Path base = manifest.toAbsolutePath().getParent();
+		Semaphore memory = new Semaphore(budget);
+		AtomicInteger failed = new AtomicInteger();
+		int jobs = 0;
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try (BufferedReader br = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+			String text;
+			int line = 0;
+			while ((text = br.readLine()) != null) {
+				line++;
+				text = text.trim();
+				if (text.isEmpty() || text.startsWith("#")) {
+					continue;
+				}
+				jobs++;
+				final Job job;
+				try {
+					job = parse(text, line, base);
+				} catch (IllegalArgumentException e) {
+					failed.incrementAndGet();
+					report(line, text, "FAILED " + e.getMessage());
+					continue;
+				}
+				job.permits = permits(job);
+				memory.acquire(job.permits);
+				pool.execute(new Runnable() {
+					public void run() {
+						long t = System.nanoTime();
+						String status;
+						try {
+							execute(job);
+							status = "ok";
+						} catch (Exception | OutOfMemoryError e) {
+							failed.incrementAndGet();
+							status = "FAILED " + e;
+						} finally {
+							memory.release(job.permits);
+						}
+						report(job.line, job.operation + " " + job.output,
+								status + String.format(" %.3f ms", (System.nanoTime() - t) / 1e6));
+					}
+				});
+			}
+		} finally {
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		report.printf("%d jobs, %d failed, %.3f s%n", jobs, failed.get(), (System.nanoTime() - start) / 1e9);
+		return failed.get();
+	}
+
+	/**
+	 * Parses a line of the manifest.
+	 *
+	 * @param text Line, trimmed
+	 * @param line Line number
+	 * @param base Directory against which relative paths are resolved
+	 * @return The job
+	 * @throws IllegalArgumentException If the line is not a valid job
+	 */
+	static Job parse(String text, int line, Path base) {
+		String[] words = text.split("\\s+");
+		Job job = new Job();
+		job.line = line;
+		job.operation = words[0];
+		if (job.operation.equals("add") || job.operation.equals("multiply")) {
+			if (words.length < 3) {
+				throw new IllegalArgumentException(job.operation + " needs inputs and an output");
+			}
+			job.inputs = new Path[words.length - 2];
+			for (int i = 0; i < job.inputs.length; i++) {
+				job.inputs[i] = base.resolve(words[i + 1]);
+			}
+			job.output = base.resolve(words[words.length - 1]);
+		} else if (job.operation.equals("evaluate")) {
+			if (words.length < 4) {
+				throw new IllegalArgumentException("evaluate needs an input, an output and points");
+			}
+			job.inputs = new Path[] { base.resolve(words[1]) };
+			job.output = base.resolve(words[2]);
+			job.points = new float[words.length - 3];
+			for (int i = 0; i < job.points.length; i++) {
+				job.points[i] = Float.parseFloat(words[i + 3]);
+			}
+		} else {
+			throw new IllegalArgumentException("unknown operation " + job.operation);
+		}
+		return job;
+	}
+
+	/**
+	 * Returns the memory permits of a job, between 1 and the budget.
+	 *
+	 * @param job Job
+	 * @return Number of permits
+	 */
+	private int permits(Job job) {
+		long bytes = 0;
+		for (Path input : job.inputs) {
+			try {
+				bytes += Files.size(input);
+			} catch (IOException e) {
+				// the job fails when it reads the input
+			}
+		}
+		return (int) Math.max(1, Math.min(budget, bytes * MEMORY_PER_BYTE / PERMIT_SIZE));
+	}
+
+	/**
+	 * Runs a job.
+	 *
+	 * @param job Job
+	 * @throws IOException If an input cannot be read or the output written
+	 */
+	static void execute(Job job) throws IOException {
+		if (job.operation.equals("evaluate")) {
+			float[] values = new float[job.points.length];
+			Polynomial.evaluateAll(read(job.inputs[0]), job.points, values);
+			try (Writer out = Files.newBufferedWriter(job.output, StandardCharsets.UTF_8)) {
+				for (int i = 0; i < values.length; i++) {
+					out.append(Float.toString(job.points[i])).append(' ').append(Float.toString(values[i])).append('\n');
+				}
+			}
+			return;
+		}
+		Node result;
+		if (job.operation.equals("add")) {
+			final PolynomialAccumulator sum = new PolynomialAccumulator();
+			PolynomialReader.TermSink sink = new PolynomialReader.TermSink() {
+				public void term(float coeff, int degree) {
+					sum.add(coeff, degree);
+				}
+			};
+			for (Path input : job.inputs) {
+				try (FileChannel channel = FileChannel.open(input)) {
+					PolynomialReader.read(channel, sink);
+				}
+			}
+			result = sum.toNode();
+		} else {
+			result = read(job.inputs[0]);
+			for (int i = 1; i < job.inputs.length; i++) {
+				result = Polynomial.multiply(result, read(job.inputs[i]));
+			}
+		}
+		try (Writer out = Files.newBufferedWriter(job.output, StandardCharsets.UTF_8)) {
+			Polynomial.write(result, out);
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * Reads a polynomial file through a channel.
+	 *
+	 * @param input File
+	 * @return The polynomial
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	private static Node read(Path input) throws IOException {
+		try (FileChannel channel = FileChannel.open(input)) {
+			return PolynomialReader.read(channel);
+		}
+	}
+
+	/**
+	 * Prints one report line.
+	 */
+	private void report(int line, String job, String status) {
+		synchronized (report) {
+			report.println(line + ": " + job + " " + status);
+		}
+	}
+
+	/**
+	 * Runs the manifest given as first argument, optionally with the number of
+	 * threads as second argument. Prints a usage line and exits with status 2
+	 * if the arguments are missing or malformed.
+	 *
+	 * @param args Command line arguments
+	 * @throws IOException If the manifest cannot be read
+	 * @throws InterruptedException If interrupted while waiting for the jobs
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1 || args.length > 2 || args.length == 2 && !args[1].matches("[1-9][0-9]{0,8}")) {
+			System.err.println("usage: java poly.PolynomialBatch <manifest> [<threads>]");
+			System.exit(2);
+		}
+		PolynomialBatch batch = args.length > 1
+				? new PolynomialBatch(Integer.parseInt(args[1]), Runtime.getRuntime().maxMemory() / 2, System.out)
+				: new PolynomialBatch();
+		if (batch.run(Paths.get(args[0])) > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,422 @@
+package poly;
+
+/**
+ * This class implements division with remainder of polynomials given as double
+ * coefficient arrays indexed by degree. Long division is used for short
+ * quotients or divisors; otherwise the quotient is computed from the reversed
+ * polynomials and a power series reciprocal of the divisor, obtained by Newton
+ * iteration on top of PolynomialMultiplier, so that division costs a constant
+ * number of multiplications.
+ *
+ * @author runb-cs112
+ *
+ */
+class PolynomialDivision {
+
+	/**
+	 * Quotient and divisor length below which long division is used.
+	 */
+	static final int NEWTON_THRESHOLD = 64;
+
+	/**
+	 * Size, relative to the largest of the coefficients of a and of the
+	 * products b[j] * q[i] summed into b * q, up to which the coefficients of
+	 * a - b * q of degree n and more may differ from zero for the Newton
+	 * quotient of a by b to be kept.
+	 */
+	static final double NEWTON_TOLERANCE = 0x1p-36;
+
+	/**
+	 * Size, relative to the coefficients they are computed from, below which
+	 * coefficients of quotients and remainders are rounding noise and are set
+	 * to zero. This is the precision of the float coefficients of Term.
+	 */
+	static final double ZERO_TOLERANCE = 0x1p-24;
+
+	/**
+	 * Unit roundoff of double arithmetic.
+	 */
+	private static final double ROUNDOFF = 0x1p-53;
+
+	/**
+	 * Size, relative to the inputs, up to which the common divisor found by
+	 * gcd must leave both of them without remainder. Above it, the floating
+	 * point remainder sequence has lost the divisor to rounding errors.
+	 */
+	static final double GCD_TOLERANCE = 0x1p-20;
+
+	/**
+	 * Returns the power series reciprocal of f modulo x^k, that is the g of
+	 * degree less than k such that f * g = 1 + O(x^k). Each Newton step
+	 * g = g * (2 - f * g) doubles the number of correct coefficients.
+	 *
+	 * @param f Series, with f[0] != 0
+	 * @param k Number of coefficients wanted
+	 * @return The k first coefficients of 1 / f
+	 */
+	static double[] reciprocal(double[] f, int k) {
+		double[] g = { 1 / f[0] };
+		for (int len = 1; len < k;) {
+			len = Math.min(2 * len, k);
+			double[] fg = PolynomialMultiplier.multiply(truncate(f, len), g);
+			double[] e = new double[len];
+			for (int i = 0; i < len && i < fg.length; i++) {
+				e[i] = -fg[i];
+			}
+			e[0] += 2;
+			g = truncate(PolynomialMultiplier.multiply(g, e), len);
+		}
+		return truncate(g, k);
+	}
+
+	/**
+	 * Divides a by b. The Newton quotient is only kept if b * q matches the
+	 * coefficients of a of degree n and more, which it must cancel, within
+	 * NEWTON_TOLERANCE of the size of the terms involved. Otherwise, as when
+	 * the reciprocal series of the reversed divisor grows exponentially and
+	 * its rounding errors swamp the quotient, long division is used instead.
+	 *
+	 * @param a Dividend, coefficients indexed by degree
+	 * @param b Divisor, whose last coefficient must be non-zero
+	 * @return Quotient and remainder, in that order; the remainder has exactly
+	 *         b.length - 1 coefficients, which are not finite only if the
+	 *         quotient itself exceeds the range of doubles
+	 */
+	static double[][] divide(double[] a, double[] b) {
+		int n = b.length - 1;
+		int m = trimmedLength(a) - 1;
+		if (m < n) {
+			double[] r = new double[n];
+			System.arraycopy(a, 0, r, 0, Math.min(a.length, n));
+			return new double[][] { new double[0], r };
+		}
+
+		int k = m - n + 1;
+		if (k < NEWTON_THRESHOLD || n < NEWTON_THRESHOLD) {
+			return longDivide(a, m, b);
+		}
+
+		// rev(q) = rev(a) / rev(b) mod x^k
+		double[] revA = new double[k];
+		for (int i = 0; i < k; i++) {
+			revA[i] = a[m - i];
+		}
+		double[] revB = new double[Math.min(k, n + 1)];
+		for (int i = 0; i < revB.length; i++) {
+			revB[i] = b[n - i];
+		}
+		double[] inverse = reciprocal(revB, k);
+		if (!isFinite(inverse)) {
+			// the series 1 / rev(b) grows too fast for doubles
+			return longDivide(a, m, b);
+		}
+		double[] revQ = truncate(PolynomialMultiplier.multiply(revA, inverse), k);
+		double[] q = new double[k];
+		for (int i = 0; i < k; i++) {
+			q[i] = revQ.length > k - 1 - i ? revQ[k - 1 - i] : 0;
+		}
+
+		// r = a - b * q, of which only the n low coefficients are non-zero
+		double[] bq = PolynomialMultiplier.multiply(b, q);
+		double[] r = new double[n];
+		for (int i = 0; i < n; i++) {
+			r[i] = a[i] - bq[i];
+		}
+		if (!isFinite(q) || !isFinite(r)) {
+			return longDivide(a, m, b);
+		}
+		double size = Math.max(maxAbs(a), maxAbs(b) * maxAbs(q));
+		for (int i = n; i <= m; i++) {
+			if (!(Math.abs(a[i] - bq[i]) <= NEWTON_TOLERANCE * size)) {
+				return longDivide(a, m, b);
+			}
+		}
+		return new double[][] { q, r };
+	}
+
+	/**
+	 * Returns the remainder of the division of a by b.
+	 *
+	 * @param a Dividend, coefficients indexed by degree
+	 * @param b Divisor, whose last coefficient must be non-zero
+	 * @return Remainder, with exactly b.length - 1 coefficients
+	 */
+	static double[] remainder(double[] a, double[] b) {
+		return divide(a, b)[1];
+	}
+
+	/**
+	 * Divides a by b, and sets to zero the coefficients of the quotient and
+	 * remainder that are below ZERO_TOLERANCE relative to the coefficients
+	 * they are computed from, so that exact divisions leave no remainder.
+	 *
+	 * @param a Dividend, coefficients indexed by degree
+	 * @param b Divisor, whose last coefficient must be non-zero
+	 * @return Quotient and remainder, in that order, both trimmed
+	 * @throws ArithmeticException If the quotient or remainder exceeds the range
+	 *                             of float coefficients
+	 */
+	static double[][] divideRounded(double[] a, double[] b) {
+		double[][] qr = divide(a, b);
+		if (!fitsFloat(qr[0]) || !fitsFloat(qr[1])) {
+			throw new ArithmeticException("quotient overflows float coefficients");
+		}
+		double maxQ = maxAbs(qr[0]);
+		clean(qr[0], ZERO_TOLERANCE * maxQ);
+		clean(qr[1], ZERO_TOLERANCE * (maxAbs(a) + maxAbs(b) * maxQ));
+		return new double[][] { truncate(qr[0], trimmedLength(qr[0])), truncate(qr[1], trimmedLength(qr[1])) };
+	}
+
+	/**
+	 * Returns the monic greatest common divisor of a and b. Every double is an
+	 * integer times a power of two, so a and b scaled by a common power of two
+	 * have integer coefficients; the degree d of their divisor is the least
+	 * degree of the divisors of their residues modulo the primes of
+	 * NumberTheoreticTransform that do not divide the leading coefficients.
+	 * If d is 0, the divisor is 1. Otherwise the divisor is the remainder of
+	 * degree d of Euclid's algorithm in double precision, where each remainder
+	 * is scaled to a largest coefficient of 1 and its coefficients within the
+	 * rounding error accumulated by the dividend, divisor and quotient are
+	 * taken as zero, so that the degree drops as in exact arithmetic.
+	 *
+	 * @param a First polynomial, coefficients indexed by degree
+	 * @param b Second polynomial, coefficients indexed by degree
+	 * @return Monic greatest common divisor, empty if both are zero
+	 * @throws ArithmeticException If the remainder sequence loses the divisor
+	 *                             to rounding errors, so that it does not
+	 *                             divide a and b within GCD_TOLERANCE
+	 */
+	static double[] gcd(double[] a, double[] b) {
+		a = truncate(a, trimmedLength(a));
+		b = truncate(b, trimmedLength(b));
+		if (a.length < b.length) {
+			double[] t = a;
+			a = b;
+			b = t;
+		}
+		if (b.length == 0) {
+			return monic(a);
+		}
+		int d = gcdDegree(a, b);
+		if (d == 0) {
+			return new double[] { 1 };
+		}
+		a = normalize(a);
+		b = normalize(b);
+
+		double[] f = a, g = b;
+		// bounds on the rounding errors of a and b, relative to their largest
+		// coefficient of 1
+		double errorA = 0, errorB = 0;
+		while (b.length - 1 > d) {
+			double[][] qr = divide(a, b);
+			double[] r = qr[1];
+			double sumQ = sumAbs(qr[0]);
+			double errorR = errorA + sumQ * errorB + ROUNDOFF * a.length * (sumAbs(a) + sumAbs(b) * sumQ);
+			if (!isFinite(r)) {
+				throw new ArithmeticException("remainder sequence overflows");
+			}
+			clean(r, errorR);
+			int length = trimmedLength(r);
+			if (length <= d) {
+				throw new ArithmeticException("rounding errors exceed the remainders");
+			}
+			double max = maxAbs(r);
+			a = b;
+			errorA = errorB;
+			b = normalize(r);
+			errorB = errorR / max;
+		}
+
+		b = monic(b);
+		if (!fitsFloat(b)) {
+			throw new ArithmeticException("common divisor overflows float coefficients");
+		}
+		for (double[] p : new double[][] { f, g }) {
+			double[][] qr = divide(p, b);
+			double size = 1 + sumAbs(qr[0]) * maxAbs(b);
+			if (!(maxAbs(qr[1]) <= GCD_TOLERANCE * size)) {
+				throw new ArithmeticException("rounding errors exceed the common divisor");
+			}
+		}
+		return b;
+	}
+
+	/**
+	 * Returns the degree of the greatest common divisor of a and b, both
+	 * trimmed and non-zero, from their residues modulo the primes of
+	 * NumberTheoreticTransform. Each residue gives an upper bound, which is
+	 * exact for all but the finitely many primes dividing a resultant.
+	 */
+	private static int gcdDegree(double[] a, double[] b) {
+		int exponent = Math.min(lowestExponent(a), lowestExponent(b));
+		int degree = b.length - 1;
+		for (int p : NumberTheoreticTransform.PRIMES) {
+			int[] ra = residues(a, exponent, p);
+			int[] rb = residues(b, exponent, p);
+			if (ra[ra.length - 1] != 0 && rb[rb.length - 1] != 0) {
+				degree = Math.min(degree, ModularDivision.gcd(ra, rb, p).length - 1);
+			}
+		}
+		return degree;
+	}
+
+	/**
+	 * Returns the least e such that every coefficient of a is an integer times
+	 * 2^e.
+	 */
+	private static int lowestExponent(double[] a) {
+		int exponent = Integer.MAX_VALUE;
+		for (double c : a) {
+			if (c != 0) {
+				exponent = Math.min(exponent, Math.getExponent(c) - 52 + Long.numberOfTrailingZeros(mantissa(c)));
+			}
+		}
+		return exponent;
+	}
+
+	/**
+	 * Returns the residues modulo p of the coefficients of a divided by
+	 * 2^exponent, which are integers.
+	 */
+	private static int[] residues(double[] a, int exponent, int p) {
+		int[] r = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			double c = a[i];
+			if (c != 0) {
+				long m = mantissa(c);
+				int zeros = Long.numberOfTrailingZeros(m);
+				int shift = Math.getExponent(c) - 52 + zeros - exponent;
+				long v = (m >>> zeros) % p * NumberTheoreticTransform.pow(2, shift, p) % p;
+				r[i] = (int) (c < 0 && v != 0 ? p - v : v);
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Returns the 53 bit significand of a normal double, as an integer.
+	 */
+	private static long mantissa(double c) {
+		return Double.doubleToRawLongBits(c) & 0xfffffffffffffL | 0x10000000000000L;
+	}
+
+	/**
+	 * Returns a copy of a, trimmed, divided by its last coefficient.
+	 */
+	private static double[] monic(double[] a) {
+		double[] m = normalize(a);
+		if (m.length > 0) {
+			double lead = m[m.length - 1];
+			for (int i = 0; i < m.length; i++) {
+				m[i] /= lead;
+			}
+			m[m.length - 1] = 1;
+		}
+		return m;
+	}
+
+	/**
+	 * Returns a copy of a, trimmed and scaled to a largest coefficient of 1.
+	 */
+	private static double[] normalize(double[] a) {
+		double[] n = truncate(a, trimmedLength(a));
+		if (n == a) {
+			n = a.clone();
+		}
+		double max = maxAbs(n);
+		for (int i = 0; i < n.length; i++) {
+			n[i] /= max;
+		}
+		return n;
+	}
+
+	/**
+	 * Sets to zero the coefficients of a whose absolute value is at most
+	 * tolerance.
+	 */
+	private static void clean(double[] a, double tolerance) {
+		for (int i = 0; i < a.length; i++) {
+			if (Math.abs(a[i]) <= tolerance) {
+				a[i] = 0;
+			}
+		}
+	}
+
+	private static double sumAbs(double[] a) {
+		double sum = 0;
+		for (double v : a) {
+			sum += Math.abs(v);
+		}
+		return sum;
+	}
+
+	private static boolean isFinite(double[] a) {
+		for (double v : a) {
+			if (Double.isNaN(v) || Double.isInfinite(v)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the coefficients of a are finite and within the range of
+	 * floats.
+	 */
+	private static boolean fitsFloat(double[] a) {
+		return maxAbs(a) <= Float.MAX_VALUE;
+	}
+
+	private static double maxAbs(double[] a) {
+		double max = 0;
+		for (double v : a) {
+			max = Math.max(max, Math.abs(v));
+		}
+		return max;
+	}
+
+	/**
+	 * Schoolbook long division of a (of degree m) by b.
+	 */
+	private static double[][] longDivide(double[] a, int m, double[] b) {
+		int n = b.length - 1;
+		double[] r = new double[m + 1];
+		System.arraycopy(a, 0, r, 0, m + 1);
+		double[] q = new double[m - n + 1];
+		double lead = b[n];
+		for (int i = m - n; i >= 0; i--) {
+			double c = r[i + n] / lead;
+			q[i] = c;
+			if (c != 0) {
+				for (int j = 0; j <= n; j++) {
+					r[i + j] -= c * b[j];
+				}
+			}
+		}
+		return new double[][] { q, truncate(r, n) };
+	}
+
+	/**
+	 * Returns the first len coefficients of a, padded with zeros if needed.
+	 */
+	static double[] truncate(double[] a, int len) {
+		if (a.length == len) {
+			return a;
+		}
+		double[] t = new double[len];
+		System.arraycopy(a, 0, t, 0, Math.min(len, a.length));
+		return t;
+	}
+
+	/**
+	 * Returns the index of the last non-zero coefficient of a, plus one.
+	 */
+	static int trimmedLength(double[] a) {
+		int length = a.length;
+		while (length > 0 && a[length - 1] == 0) {
+			length--;
+		}
+		return length;
+	}
+}
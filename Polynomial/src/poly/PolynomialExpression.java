@@ -0,0 +1,433 @@
+package poly;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * This class implements lazy polynomial expressions. Sums and products of
+ * polynomials are recorded as a directed acyclic graph instead of being
+ * computed, and the work is done only when the value of the expression at a
+ * point, or the expression as a polynomial, is asked for.
+ *
+ * Expressions are created by a Builder, which shares common subexpressions:
+ * asking twice for the same leaf polynomial (the same front node), or for the
+ * sum or product of the same two expressions in either order, returns the same
+ * expression, which is then computed once.
+ *
+ * Evaluating at a point walks the graph once in topological order, with one
+ * float per expression and no polynomial built. Converting to a polynomial
+ * walks it in the same order, without recursion, however deep the graph, and
+ * accumulates every sum straight into the output buffer of its consumer: for
+ * add(multiply(a, b), multiply(c, d)) both products are added into a single
+ * array, and only operands of products that are themselves sums or products
+ * are built as intermediate arrays. Sparse results, whose degree is large for
+ * their number of terms, are built from linked lists with Polynomial.add and
+ * Polynomial.multiply instead. As terms are added in a different order, the
+ * coefficients may differ in the last bits from those of the equivalent chain
+ * of Polynomial calls.
+ *
+ * @author runb-cs112
+ *
+ */
+public class PolynomialExpression {
+
+	/**
+	 * Kinds of expressions.
+	 */
+	static final byte LEAF = 0, SUM = 1, PRODUCT = 2;
+
+	/**
+	 * Kind of this expression.
+	 */
+	final byte kind;
+
+	/**
+	 * Builder that created this expression.
+	 */
+	final Builder builder;
+
+	/**
+	 * Position of this expression in the order of creation by its builder,
+	 * which is a topological order: operands come first.
+	 */
+	final int id;
+
+	/**
+	 * Polynomial of a leaf, null otherwise.
+	 */
+	final Node poly;
+
+	/**
+	 * Operands of a sum or product, null for a leaf.
+	 */
+	final PolynomialExpression left, right;
+
+	/**
+	 * Upper bound on the degree of the result, -1 if it is zero.
+	 */
+	final int degree;
+
+	/**
+	 * Upper bound on the number of terms of the result.
+	 */
+	final long terms;
+
+	/**
+	 * Evaluator of a leaf, created when first needed.
+	 */
+	private CompiledPolynomial compiled;
+
+	/**
+	 * Subexpressions in topological order, created when first needed.
+	 */
+	private Plan plan;
+
+	private PolynomialExpression(byte kind, Builder builder, int id, Node poly, PolynomialExpression left,
+			PolynomialExpression right, int degree, long terms) {
+		this.kind = kind;
+		this.builder = builder;
+		this.id = id;
+		this.poly = poly;
+		this.left = left;
+		this.right = right;
+		this.degree = degree;
+		this.terms = terms;
+	}
+
+	/**
+	 * Creates expressions, sharing common subexpressions. A builder is not
+	 * safe for use by several threads at once; the expressions it creates are.
+	 */
+	public static class Builder {
+
+		/**
+		 * Leaves, by front node.
+		 */
+		private final IdentityHashMap<Node, PolynomialExpression> leaves = new IdentityHashMap<Node, PolynomialExpression>();
+
+		/**
+		 * Sums and products, by pair of operand ids.
+		 */
+		private final HashMap<Long, PolynomialExpression> sums = new HashMap<Long, PolynomialExpression>(),
+				products = new HashMap<Long, PolynomialExpression>();
+
+		/**
+		 * Number of expressions created.
+		 */
+		private int count;
+
+		/**
+		 * Returns the expression for a polynomial, which must not be changed while
+		 * the expression is in use.
+		 *
+		 * @param poly Polynomial (front of linked list), in ascending order of
+		 *             degrees
+		 * @return Leaf expression for poly
+		 */
+		public PolynomialExpression of(Node poly) {
+			PolynomialExpression e = leaves.get(poly);
+			if (e == null) {
+				int degree = -1;
+				long terms = 0;
+				for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+					degree = Math.max(degree, ptr.term.degree);
+					terms++;
+				}
+				e = new PolynomialExpression(LEAF, this, count++, poly, null, null, degree, terms);
+				leaves.put(poly, e);
+			}
+			return e;
+		}
+
+		/**
+		 * Returns the expression for the sum of two expressions of this builder.
+		 *
+		 * @param e1 First operand
+		 * @param e2 Second operand
+		 * @return Expression for e1 + e2
+		 */
+		public PolynomialExpression add(PolynomialExpression e1, PolynomialExpression e2) {
+			Long key = key(e1, e2);
+			PolynomialExpression e = sums.get(key);
+			if (e == null) {
+				e = new PolynomialExpression(SUM, this, count++, null, e1, e2, Math.max(e1.degree, e2.degree),
+						e1.terms + e2.terms);
+				sums.put(key, e);
+			}
+			return e;
+		}
+
+		/**
+		 * Returns the expression for the product of two expressions of this
+		 * builder.
+		 *
+		 * @param e1 First operand
+		 * @param e2 Second operand
+		 * @return Expression for e1 * e2
+		 */
+		public PolynomialExpression multiply(PolynomialExpression e1, PolynomialExpression e2) {
+			Long key = key(e1, e2);
+			PolynomialExpression e = products.get(key);
+			if (e == null) {
+				boolean zero = e1.degree < 0 || e2.degree < 0;
+				e = new PolynomialExpression(PRODUCT, this, count++, null, e1, e2, zero ? -1 : e1.degree + e2.degree,
+						zero ? 0 : Math.min(e1.terms * e2.terms, e1.degree + e2.degree + 1L));
+				products.put(key, e);
+			}
+			return e;
+		}
+
+		/**
+		 * Returns a key for an unordered pair of operands, which must have been
+		 * created by this builder.
+		 */
+		private Long key(PolynomialExpression e1, PolynomialExpression e2) {
+			if (e1.builder != this || e2.builder != this) {
+				throw new IllegalArgumentException("expression from another builder");
+			}
+			int low = Math.min(e1.id, e2.id), high = Math.max(e1.id, e2.id);
+			return ((long) high << 32) | low;
+		}
+	}
+
+	/**
+	 * Subexpressions of an expression, in topological order, with the
+	 * positions of their operands and their number of uses within the
+	 * expression.
+	 */
+	private static class Plan {
+		final PolynomialExpression[] nodes;
+		final int[] left, right, uses;
+
+		Plan(PolynomialExpression root) {
+			IdentityHashMap<PolynomialExpression, Boolean> seen = new IdentityHashMap<PolynomialExpression, Boolean>();
+			ArrayList<PolynomialExpression> stack = new ArrayList<PolynomialExpression>();
+			stack.add(root);
+			seen.put(root, Boolean.TRUE);
+			while (!stack.isEmpty()) {
+				PolynomialExpression e = stack.remove(stack.size() - 1);
+				if (e.kind != LEAF) {
+					for (PolynomialExpression operand : new PolynomialExpression[] { e.left, e.right }) {
+						if (seen.put(operand, Boolean.TRUE) == null) {
+							stack.add(operand);
+						}
+					}
+				}
+			}
+
+			nodes = seen.keySet().toArray(new PolynomialExpression[seen.size()]);
+			Arrays.sort(nodes, (a, b) -> Integer.compare(a.id, b.id));
+			HashMap<Integer, Integer> position = new HashMap<Integer, Integer>();
+			for (int i = 0; i < nodes.length; i++) {
+				position.put(nodes[i].id, i);
+			}
+			left = new int[nodes.length];
+			right = new int[nodes.length];
+			uses = new int[nodes.length];
+			uses[nodes.length - 1] = 1;
+			for (int i = 0; i < nodes.length; i++) {
+				if (nodes[i].kind != LEAF) {
+					left[i] = position.get(nodes[i].left.id);
+					right[i] = position.get(nodes[i].right.id);
+					uses[left[i]]++;
+					uses[right[i]]++;
+				}
+			}
+		}
+	}
+
+	private Plan plan() {
+		if (plan == null) {
+			plan = new Plan(this);
+		}
+		return plan;
+	}
+
+	/**
+	 * Evaluates this expression at a given value, without computing any
+	 * polynomial. Each subexpression is evaluated once, leaves with their
+	 * CompiledPolynomial.
+	 *
+	 * @param x Value at which evaluation is to be done
+	 * @return Value of this expression at x
+	 */
+	public float evaluate(float x) {
+		Plan plan = plan();
+		float[] values = new float[plan.nodes.length];
+		for (int i = 0; i < values.length; i++) {
+			PolynomialExpression e = plan.nodes[i];
+			switch (e.kind) {
+			case LEAF:
+				values[i] = e.compiled().evaluate(x);
+				break;
+			case SUM:
+				values[i] = values[plan.left[i]] + values[plan.right[i]];
+				break;
+			default:
+				values[i] = values[plan.left[i]] * values[plan.right[i]];
+			}
+		}
+		return values[values.length - 1];
+	}
+
+	private CompiledPolynomial compiled() {
+		if (compiled == null) {
+			compiled = CompiledPolynomial.compile(poly);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Computes this expression as a polynomial linked list. The result has all
+	 * new nodes.
+	 *
+	 * @return Front of the new polynomial linked list, in ascending order of
+	 *         degrees, or null for zero
+	 */
+	public Node toNode() {
+		if (degree >= 0 && terms >= (degree + 1L) * DensePolynomial.DENSE_FILL_RATIO) {
+			return toDense().toNode();
+		}
+		return materialize(plan());
+	}
+
+	/**
+	 * Computes this expression in dense form, with sums fused into the buffers
+	 * of their consumers.
+	 *
+	 * @return Dense form of this expression
+	 */
+	public DensePolynomial toDense() {
+		float[] out = new float[degree + 1];
+		compute(plan(), out);
+		return DensePolynomial.wrap(out);
+	}
+
+	/**
+	 * Adds the coefficients of the last subexpression of plan into out, which
+	 * is long enough, going through the subexpressions in topological order.
+	 * A subexpression used once, by a sum, is added straight into the buffer
+	 * of that sum; others, that is the operands of products and subexpressions
+	 * used more than once, are computed into a buffer of their own, which is
+	 * dropped after its last use.
+	 */
+	private static void compute(Plan plan, float[] out) {
+		int n = plan.nodes.length;
+		// subexpression whose buffer each subexpression is added into
+		int[] target = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			target[i] = i;
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			if (plan.nodes[i].kind == SUM) {
+				if (plan.uses[plan.left[i]] == 1) {
+					target[plan.left[i]] = target[i];
+				}
+				if (plan.uses[plan.right[i]] == 1) {
+					target[plan.right[i]] = target[i];
+				}
+			}
+		}
+
+		float[][] buffers = new float[n][];
+		buffers[n - 1] = out;
+		int[] remaining = plan.uses.clone();
+		for (int i = 0; i < n; i++) {
+			PolynomialExpression e = plan.nodes[i];
+			float[] buffer = buffer(plan, buffers, target[i]);
+			switch (e.kind) {
+			case LEAF:
+				for (Node ptr = e.poly; ptr != null; ptr = ptr.next) {
+					buffer[ptr.term.degree] += ptr.term.coeff;
+				}
+				break;
+			case SUM:
+				for (int j : new int[] { plan.left[i], plan.right[i] }) {
+					if (target[j] == j) {
+						addInto(buffers[j], buffer);
+						release(buffers, remaining, j);
+					}
+				}
+				break;
+			default:
+				float[] a = buffers[plan.left[i]];
+				float[] b = buffers[plan.right[i]];
+				release(buffers, remaining, plan.left[i]);
+				release(buffers, remaining, plan.right[i]);
+				if (a.length == 0 || b.length == 0) {
+					break;
+				}
+				if (Math.min(a.length, b.length) < PolynomialMultiplier.KARATSUBA_THRESHOLD) {
+					for (int j = 0; j < a.length; j++) {
+						float aj = a[j];
+						if (aj != 0) {
+							for (int k = 0; k < b.length; k++) {
+								buffer[j + k] += aj * b[k];
+							}
+						}
+					}
+				} else {
+					addInto(PolynomialMultiplier.multiply(a, b), buffer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the buffer of subexpression i, indexed by degree, allocating it
+	 * if needed.
+	 */
+	private static float[] buffer(Plan plan, float[][] buffers, int i) {
+		if (buffers[i] == null) {
+			buffers[i] = new float[plan.nodes[i].degree + 1];
+		}
+		return buffers[i];
+	}
+
+	/**
+	 * Counts one use of the result of subexpression i, and drops it after the
+	 * last one.
+	 */
+	private static void release(Object[] results, int[] remaining, int i) {
+		if (--remaining[i] == 0) {
+			results[i] = null;
+		}
+	}
+
+	private static void addInto(float[] c, float[] out) {
+		for (int j = 0; j < c.length; j++) {
+			out[j] += c[j];
+		}
+	}
+
+	/**
+	 * Computes the last subexpression of plan as a linked list, going through
+	 * the subexpressions in topological order with Polynomial.add and
+	 * Polynomial.multiply, and dropping each list after its last use.
+	 */
+	private static Node materialize(Plan plan) {
+		int n = plan.nodes.length;
+		Node[] lists = new Node[n];
+		int[] remaining = plan.uses.clone();
+		for (int i = 0; i < n; i++) {
+			PolynomialExpression e = plan.nodes[i];
+			switch (e.kind) {
+			case LEAF:
+				lists[i] = i == n - 1 ? Polynomial.add(e.poly, null) : e.poly;
+				break;
+			case SUM:
+				lists[i] = Polynomial.add(lists[plan.left[i]], lists[plan.right[i]]);
+				break;
+			default:
+				lists[i] = Polynomial.multiply(lists[plan.left[i]], lists[plan.right[i]]);
+			}
+			if (e.kind != LEAF) {
+				release(lists, remaining, plan.left[i]);
+				release(lists, remaining, plan.right[i]);
+			}
+		}
+		return lists[n - 1];
+	}
+}
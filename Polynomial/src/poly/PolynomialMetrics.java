@@ -0,0 +1,316 @@
+package poly;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class collects metrics of the add, multiply and evaluate operations of
+ * Polynomial: calls, input and output terms, nodes allocated and latencies.
+ *
+ * Collection is off unless the JVM is started with -Dpoly.metrics=true. The
+ * switch is the constant ENABLED, which guards every hook, so that when it is
+ * false the JIT compiler removes the hooks and the operations run exactly as
+ * without them. When it is true, each call reads the clock twice, walks its
+ * input and output lists once more to count their terms, and each new Node
+ * bumps a per-thread counter; counters are LongAdders, which do not contend
+ * between threads.
+ *
+ * Metrics can be pulled with snapshot, or exposed as MXBeans named
+ * poly:type=PolynomialMetrics,operation=NAME by register.
+ *
+ * @author runb-cs112
+ *
+ */
+public class PolynomialMetrics {
+
+	/**
+	 * Whether metrics are collected, from the system property poly.metrics.
+	 */
+	public static final boolean ENABLED = Boolean.getBoolean("poly.metrics");
+
+	/**
+	 * Operations.
+	 */
+	public static final int ADD = 0;
+	public static final int MULTIPLY = 1;
+	public static final int EVALUATE = 2;
+
+	/**
+	 * Names of the operations, by number.
+	 */
+	static final String[] NAMES = { "add", "multiply", "evaluate" };
+
+	/**
+	 * Number of buckets of the latency histograms, one per power of two of
+	 * nanoseconds.
+	 */
+	static final int BUCKETS = 64;
+
+	/**
+	 * Metrics of the operations, by number.
+	 */
+	private static final Metrics[] METRICS = { new Metrics(), new Metrics(), new Metrics() };
+
+	/**
+	 * Number of nodes created by each thread.
+	 */
+	private static final ThreadLocal<long[]> NODES = new ThreadLocal<long[]>() {
+		protected long[] initialValue() {
+			return new long[1];
+		}
+	};
+
+	/**
+	 * Counters of one operation.
+	 */
+	static class Metrics implements PolynomialMetricsMXBean {
+
+		final LongAdder calls = new LongAdder();
+		final LongAdder inputTerms = new LongAdder();
+		final LongAdder outputTerms = new LongAdder();
+		final LongAdder nodes = new LongAdder();
+		final LongAdder nanos = new LongAdder();
+		final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+		Metrics() {
+			for (int i = 0; i < BUCKETS; i++) {
+				histogram[i] = new LongAdder();
+			}
+		}
+
+		public long getCalls() {
+			return calls.sum();
+		}
+
+		public long getInputTerms() {
+			return inputTerms.sum();
+		}
+
+		public long getOutputTerms() {
+			return outputTerms.sum();
+		}
+
+		public long getNodesAllocated() {
+			return nodes.sum();
+		}
+
+		public long getTotalNanos() {
+			return nanos.sum();
+		}
+
+		public long[] getLatencyHistogram() {
+			long[] counts = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++) {
+				counts[i] = histogram[i].sum();
+			}
+			return counts;
+		}
+
+		public long latencyPercentile(double percentile) {
+			return PolynomialMetrics.percentile(getLatencyHistogram(), percentile);
+		}
+
+		public void reset() {
+			calls.reset();
+			inputTerms.reset();
+			outputTerms.reset();
+			nodes.reset();
+			nanos.reset();
+			for (LongAdder bucket : histogram) {
+				bucket.reset();
+			}
+		}
+	}
+
+	/**
+	 * Metrics of one operation at one point in time. The counters are read one
+	 * after the other while calls may be going on, so they may be off by the
+	 * calls in flight.
+	 */
+	public static class Snapshot {
+
+		private final String operation;
+		private final long calls, inputTerms, outputTerms, nodes, nanos;
+		private final long[] histogram;
+
+		Snapshot(String operation, Metrics metrics) {
+			this.operation = operation;
+			calls = metrics.getCalls();
+			inputTerms = metrics.getInputTerms();
+			outputTerms = metrics.getOutputTerms();
+			nodes = metrics.getNodesAllocated();
+			nanos = metrics.getTotalNanos();
+			histogram = metrics.getLatencyHistogram();
+		}
+
+		/**
+		 * @return Number of calls
+		 */
+		public long calls() {
+			return calls;
+		}
+
+		/**
+		 * @return Number of terms of the input polynomials, over all calls
+		 */
+		public long inputTerms() {
+			return inputTerms;
+		}
+
+		/**
+		 * @return Number of terms of the results, over all calls
+		 */
+		public long outputTerms() {
+			return outputTerms;
+		}
+
+		/**
+		 * @return Number of nodes created by the calling threads during the calls
+		 */
+		public long nodesAllocated() {
+			return nodes;
+		}
+
+		/**
+		 * @return Time spent in the calls, in nanoseconds
+		 */
+		public long totalNanos() {
+			return nanos;
+		}
+
+		/**
+		 * @return Counts of calls per power of two of nanoseconds, as in
+		 *         PolynomialMetricsMXBean.getLatencyHistogram
+		 */
+		public long[] latencyHistogram() {
+			return histogram.clone();
+		}
+
+		/**
+		 * Returns an upper bound of the given percentile of the latencies, to
+		 * within a factor of two.
+		 *
+		 * @param percentile Percentile, from 0 to 100
+		 * @return Latency, in nanoseconds, or 0 if there was no call
+		 */
+		public long latencyPercentile(double percentile) {
+			return percentile(histogram, percentile);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		public String toString() {
+			return String.format("%s: %d calls, %d terms in, %d terms out, %d nodes, %.3f ms, p50 %d ns, p99 %d ns",
+					operation, calls, inputTerms, outputTerms, nodes, nanos / 1e6, latencyPercentile(50),
+					latencyPercentile(99));
+		}
+	}
+
+	/**
+	 * Returns a snapshot of the metrics of an operation.
+	 *
+	 * @param operation ADD, MULTIPLY or EVALUATE
+	 * @return Snapshot, with all counters at zero if metrics are not enabled
+	 */
+	public static Snapshot snapshot(int operation) {
+		return new Snapshot(NAMES[operation], METRICS[operation]);
+	}
+
+	/**
+	 * Sets the counters of all operations back to zero.
+	 */
+	public static void reset() {
+		for (Metrics metrics : METRICS) {
+			metrics.reset();
+		}
+	}
+
+	/**
+	 * Registers the metrics of each operation with the platform MBean server,
+	 * as poly:type=PolynomialMetrics,operation=NAME.
+	 *
+	 * @throws JMException If the beans cannot be registered, for instance
+	 *         because they already are
+	 */
+	public static void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (int i = 0; i < METRICS.length; i++) {
+			server.registerMBean(METRICS[i], new ObjectName("poly:type=PolynomialMetrics,operation=" + NAMES[i]));
+		}
+	}
+
+	/**
+	 * Returns the number of nodes created so far by the current thread, to be
+	 * passed to record.
+	 *
+	 * @return Number of nodes
+	 */
+	static long nodes() {
+		return NODES.get()[0];
+	}
+
+	/**
+	 * Counts a node created by the current thread; called by the Node
+	 * constructor.
+	 */
+	static void nodeCreated() {
+		NODES.get()[0]++;
+	}
+
+	/**
+	 * Records a call.
+	 *
+	 * @param operation ADD, MULTIPLY or EVALUATE
+	 * @param start Value of System.nanoTime at the start of the call
+	 * @param nodes Value of nodes() at the start of the call
+	 * @param poly1 First input polynomial
+	 * @param poly2 Second input polynomial, or null
+	 * @param result Result polynomial, or null
+	 */
+	static void record(int operation, long start, long nodes, Node poly1, Node poly2, Node result) {
+		long nanos = System.nanoTime() - start;
+		Metrics metrics = METRICS[operation];
+		metrics.calls.increment();
+		metrics.inputTerms.add(length(poly1) + length(poly2));
+		metrics.outputTerms.add(length(result));
+		metrics.nodes.add(nodes() - nodes);
+		metrics.nanos.add(nanos);
+		metrics.histogram[nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos)].increment();
+	}
+
+	private static long length(Node poly) {
+		long n = 0;
+		for (; poly != null; poly = poly.next) {
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the upper bound of the bucket of a latency histogram in which a
+	 * percentile falls.
+	 */
+	static long percentile(long[] histogram, double percentile) {
+		long total = 0;
+		for (long count : histogram) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if (seen >= rank) {
+				return i == BUCKETS - 1 ? Long.MAX_VALUE : (2L << i) - 1;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+}
@@ -0,0 +1,69 @@
+package poly;
+
+/**
+ * Management interface of the metrics of one operation of Polynomial, as
+ * registered by PolynomialMetrics.register.
+ *
+ * @author runb-cs112
+ *
+ */
+public interface PolynomialMetricsMXBean {
+
+	/**
+	 * Returns the number of calls.
+	 *
+	 * @return Number of calls
+	 */
+	long getCalls();
+
+	/**
+	 * Returns the number of terms of the input polynomials, over all calls.
+	 *
+	 * @return Number of input terms
+	 */
+	long getInputTerms();
+
+	/**
+	 * Returns the number of terms of the results, over all calls.
+	 *
+	 * @return Number of output terms
+	 */
+	long getOutputTerms();
+
+	/**
+	 * Returns the number of nodes created by the calling threads during the
+	 * calls.
+	 *
+	 * @return Number of nodes allocated
+	 */
+	long getNodesAllocated();
+
+	/**
+	 * Returns the time spent in the calls.
+	 *
+	 * @return Total time, in nanoseconds
+	 */
+	long getTotalNanos();
+
+	/**
+	 * Returns the latency histogram: element i is the number of calls that took
+	 * from 2^i to 2^(i+1) - 1 nanoseconds (0 or 1 nanosecond for i = 0).
+	 *
+	 * @return Counts of calls per power of two of nanoseconds
+	 */
+	long[] getLatencyHistogram();
+
+	/**
+	 * Returns an upper bound of the given percentile of the latencies, to
+	 * within a factor of two.
+	 *
+	 * @param percentile Percentile, from 0 to 100
+	 * @return Latency, in nanoseconds, or 0 if there was no call
+	 */
+	long latencyPercentile(double percentile);
+
+	/**
+	 * Sets all the counters back to zero.
+	 */
+	void reset();
+}
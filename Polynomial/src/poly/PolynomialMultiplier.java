@@ -0,0 +1,917 @@
+package poly;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class implements the multiplication engine used by Polynomial.multiply.
+ * It picks, from the sizes and densities of the operands, between a heap
+ * merged sparse product on linked lists and a dense product on coefficient
+ * arrays, and for dense products between schoolbook, Karatsuba and FFT
+ * multiplication.
+ *
+ * Sparse and schoolbook products are accumulated in float, in the same order
+ * as the original linked list loop, so they give exactly the same results as
+ * before. Karatsuba and FFT products are computed in double and rounded to
+ * float at the end. Coefficients that are not larger than the rounding error
+ * of the method by the precision of float are summed again directly, in the
+ * order of the schoolbook product, so that small exact coefficients are kept
+ * and cancelled ones come out as they did before.
+ *
+ * @author runb-cs112
+ *
+ */
+public class PolynomialMultiplier {
+
+	/**
+	 * Shortest operand length, in coefficients, from which Karatsuba is used
+	 * instead of schoolbook multiplication.
+	 */
+	static final int KARATSUBA_THRESHOLD = 48;
+
+	/**
+	 * Shortest operand length, in coefficients, from which FFT is used instead
+	 * of Karatsuba multiplication.
+	 */
+	static final int FFT_THRESHOLD = 512;
+
+	/**
+	 * Relative cost of one heap step of a sparse product compared to one
+	 * multiply-add on coefficient arrays, used to choose between them.
+	 */
+	static final int SPARSE_TERM_COST = 4;
+
+	/**
+	 * Default number of partial products below which a task of
+	 * parallelMultiply is not split further.
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * Returns the product of two polynomials - DOES NOT change either of the
+	 * input polynomials. The returned polynomial has all new nodes.
+	 *
+	 * @param poly1 First input polynomial (front of polynomial linked list)
+	 * @param poly2 Second input polynomial (front of polynomial linked list)
+	 * @return A new polynomial which is the product of the input polynomials
+	 */
+	public static Node multiply(Node poly1, Node poly2) {
+		if (poly1 == null || poly2 == null) {
+			return null;
+		}
+		return isSparseCheaper(poly1, poly2) ? multiplySparse(poly1, poly2) : multiplyDense(poly1, poly2);
+	}
+
+	/**
+	 * Returns the product of two polynomials, computed by the tasks of a
+	 * ForkJoinPool - DOES NOT change either of the input polynomials. The
+	 * returned polynomial has all new nodes.
+	 *
+	 * The choice between sparse and dense products is the same as in multiply.
+	 * Sparse products are split by ranges of degrees of the result: each task
+	 * merges the partial products that fall in its range, and the lists of the
+	 * two halves of a range are joined end to end once both are done. Since each
+	 * coefficient is summed in the same order as in multiply, the result is
+	 * identical.
+	 *
+	 * Dense products multiplied with Karatsuba or FFT are split by the blocks,
+	 * at least as long as the shorter operand, which multiply cuts the longer
+	 * one into too: each task multiplies a range of blocks, and the products of
+	 * the two halves of a range are added where they overlap once both are
+	 * done. A coefficient gets contributions from at most two blocks, so the
+	 * order of these additions does not change it, and the result is again
+	 * identical. Operands of about the same length make a single block, and
+	 * schoolbook products are not split; both run on the calling thread.
+	 *
+	 * @param poly1 First input polynomial (front of polynomial linked list)
+	 * @param poly2 Second input polynomial (front of polynomial linked list)
+	 * @param threshold Number of partial products below which a task is not
+	 *                  split further
+	 * @return A new polynomial which is the product of the input polynomials
+	 * @throws IllegalArgumentException If threshold is not positive
+	 */
+	public static Node parallelMultiply(Node poly1, Node poly2, int threshold) {
+		if (threshold <= 0) {
+			throw new IllegalArgumentException("threshold must be positive");
+		}
+		if (poly1 == null || poly2 == null) {
+			return null;
+		}
+		if (!isSparseCheaper(poly1, poly2)) {
+			float[] product = parallelMultiply(DensePolynomial.fromNode(poly1).coeffs,
+					DensePolynomial.fromNode(poly2).coeffs, threshold);
+			return DensePolynomial.wrap(product).toNode();
+		}
+
+		Terms rows = new Terms(poly1);
+		Terms cols = new Terms(poly2);
+		if (rows.count == 0 || cols.count == 0) {
+			return null;
+		}
+
+		int minRow = Integer.MAX_VALUE, maxRow = Integer.MIN_VALUE;
+		for (int i = 0; i < rows.count; i++) {
+			minRow = Math.min(minRow, rows.degrees[i]);
+			maxRow = Math.max(maxRow, rows.degrees[i]);
+		}
+		long low = (long) minRow + cols.degrees[0];
+		long high = (long) maxRow + cols.degrees[cols.count - 1] + 1;
+		double work = (double) rows.count * cols.count;
+		return ForkJoinPool.commonPool().invoke(new SparseProduct(rows, cols, low, high, work, threshold))[0];
+	}
+
+	/**
+	 * Tells whether the sparse product of two polynomials is expected to be
+	 * cheaper than the dense one.
+	 *
+	 * @param poly1 First input polynomial (front of polynomial linked list)
+	 * @param poly2 Second input polynomial (front of polynomial linked list)
+	 * @return True to use multiplySparse, false to use multiplyDense
+	 */
+	private static boolean isSparseCheaper(Node poly1, Node poly2) {
+		long terms1 = 0, terms2 = 0;
+		int degree1 = 0, degree2 = 0;
+		for (Node ptr = poly1; ptr != null; ptr = ptr.next) {
+			terms1++;
+			degree1 = Math.max(degree1, ptr.term.degree);
+		}
+		for (Node ptr = poly2; ptr != null; ptr = ptr.next) {
+			terms2++;
+			degree2 = Math.max(degree2, ptr.term.degree);
+		}
+
+		long heapDepth = 64 - Long.numberOfLeadingZeros(terms1);
+		return SPARSE_TERM_COST * heapDepth * terms1 * terms2 <= denseCost(degree1 + 1, degree2 + 1);
+	}
+
+	/**
+	 * Returns the product of two polynomials given as linked lists, computed on
+	 * their dense forms.
+	 *
+	 * @param poly1 First input polynomial (front of polynomial linked list)
+	 * @param poly2 Second input polynomial (front of polynomial linked list)
+	 * @return A new polynomial which is the product of the input polynomials
+	 */
+	static Node multiplyDense(Node poly1, Node poly2) {
+		float[] product = multiply(DensePolynomial.fromNode(poly1).coeffs, DensePolynomial.fromNode(poly2).coeffs);
+		return DensePolynomial.wrap(product).toNode();
+	}
+
+	/**
+	 * Returns the product of two polynomials given as linked lists, both in
+	 * ascending order of degrees, by merging the rows of partial products (one
+	 * term of poly1 times all of poly2) in degree order.
+	 *
+	 * @param poly1 First input polynomial (front of polynomial linked list)
+	 * @param poly2 Second input polynomial (front of polynomial linked list)
+	 * @return A new polynomial which is the product of the input polynomials
+	 */
+	static Node multiplySparse(Node poly1, Node poly2) {
+		Terms rows = new Terms(poly1);
+		Terms cols = new Terms(poly2);
+		if (rows.count == 0 || cols.count == 0) {
+			return null;
+		}
+		return multiplySparse(rows, cols, Integer.MIN_VALUE, Long.MAX_VALUE)[0];
+	}
+
+	/**
+	 * Returns the terms of degree in [low, high) of the product of two
+	 * polynomials, by merging the rows of partial products (one term of rows
+	 * times all of cols) in degree order.
+	 *
+	 * A binary heap holds one cursor into cols per row, keyed on the degree of
+	 * the partial product it points at, ties going to the earlier row. Partial
+	 * products of equal degree come out consecutively and are summed on the
+	 * spot, so each node of the result is created exactly once, terms that
+	 * cancel are never created, and the working memory is one heap entry per
+	 * row. Since each coefficient is always summed in row order, splitting the
+	 * degrees into ranges does not change the result.
+	 *
+	 * @param rows Terms of the first polynomial
+	 * @param cols Terms of the second polynomial, in ascending order of degrees
+	 * @param low Lowest degree of the terms to compute
+	 * @param high Highest degree of the terms to compute, plus one
+	 * @return Front and last node of the product terms, both null if there is
+	 *         none
+	 */
+	static Node[] multiplySparse(Terms rows, Terms cols, long low, long high) {
+		int[] rowDegree = rows.degrees;
+		int[] colDegree = cols.degrees;
+		int[] cursor = new int[rows.count];
+		int[] heap = new int[rows.count];
+		int size = 0;
+		for (int row = 0; row < rows.count; row++) {
+			int col = lowerBound(colDegree, cols.count, low - rowDegree[row]);
+			if (col < cols.count && (long) rowDegree[row] + colDegree[col] < high) {
+				cursor[row] = col;
+				heap[size++] = row;
+			}
+		}
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(heap, size, i, rowDegree, colDegree, cursor);
+		}
+
+		Node head = null;
+		Node tail = null;
+		while (size > 0) {
+			int row = heap[0];
+			int degree = rowDegree[row] + colDegree[cursor[row]];
+			if (degree >= high) {
+				break;
+			}
+			float coeff = 0;
+
+			do {
+				coeff += rows.coeffs[row] * cols.coeffs[cursor[row]];
+				if (++cursor[row] == cols.count) {
+					heap[0] = heap[--size];
+				}
+				if (size > 0) {
+					siftDown(heap, size, 0, rowDegree, colDegree, cursor);
+					row = heap[0];
+				}
+			} while (size > 0 && rowDegree[row] + colDegree[cursor[row]] == degree);
+
+			if (coeff != 0) {
+				Node next = new Node(coeff, degree, null);
+				if (tail != null) {
+					tail = tail.next = next;
+				} else {
+					head = tail = next;
+				}
+			}
+		}
+
+		return new Node[] { head, tail };
+	}
+
+	/**
+	 * Returns the index of the first of the count first degrees that is at
+	 * least key, or count if there is none.
+	 */
+	private static int lowerBound(int[] degrees, int count, long key) {
+		int low = 0, high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (degrees[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Restores the heap order below position i of a heap of row indices, keyed
+	 * on the degree of each row's current partial product, then on row index.
+	 */
+	private static void siftDown(int[] heap, int size, int i, int[] rowDegree, int[] colDegree, int[] cursor) {
+		int row = heap[i];
+		int degree = rowDegree[row] + colDegree[cursor[row]];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			int childRow = heap[child];
+			int childDegree = rowDegree[childRow] + colDegree[cursor[childRow]];
+			if (child + 1 < size) {
+				int rightRow = heap[child + 1];
+				int rightDegree = rowDegree[rightRow] + colDegree[cursor[rightRow]];
+				if (rightDegree < childDegree || rightDegree == childDegree && rightRow < childRow) {
+					child++;
+					childRow = rightRow;
+					childDegree = rightDegree;
+				}
+			}
+			if (degree < childDegree || degree == childDegree && row < childRow) {
+				break;
+			}
+			heap[i] = childRow;
+			i = child;
+		}
+		heap[i] = row;
+	}
+
+	/**
+	 * Task computing the terms of a sparse product whose degrees are in a given
+	 * range, split in two halves while it has more than threshold partial
+	 * products (estimated as a share of the total proportional to the width of
+	 * the range).
+	 */
+	static class SparseProduct extends RecursiveTask<Node[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		final Terms rows, cols;
+		final long low, high;
+		final double work;
+		final int threshold;
+
+		SparseProduct(Terms rows, Terms cols, long low, long high, double work, int threshold) {
+			this.rows = rows;
+			this.cols = cols;
+			this.low = low;
+			this.high = high;
+			this.work = work;
+			this.threshold = threshold;
+		}
+
+		protected Node[] compute() {
+			if (work <= threshold || high - low < 2) {
+				return multiplySparse(rows, cols, low, high);
+			}
+
+			long mid = low + (high - low) / 2;
+			SparseProduct upper = new SparseProduct(rows, cols, mid, high, work / 2, threshold);
+			upper.fork();
+			Node[] lower = new SparseProduct(rows, cols, low, mid, work / 2, threshold).compute();
+			Node[] higher = upper.join();
+
+			if (lower[0] == null) {
+				return higher;
+			}
+			if (higher[0] != null) {
+				lower[1].next = higher[0];
+				lower[1] = higher[1];
+			}
+			return lower;
+		}
+	}
+
+	/**
+	 * Task computing the sum of the products of a range of blocks of a with b.
+	 * The coefficients of the degrees of the range of a are stored in out, and
+	 * the n - 1 that follow, where the product of the next range adds to them,
+	 * are returned. The range is split in two halves while it has more than
+	 * threshold partial products.
+	 */
+	static class DenseProduct extends RecursiveTask<double[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		final double[] a, b, out;
+		final int from, to;
+		final int threshold;
+
+		DenseProduct(double[] a, double[] b, double[] out, int from, int to, int threshold) {
+			this.a = a;
+			this.b = b;
+			this.out = out;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		protected double[] compute() {
+			int n = b.length;
+			int start = from * blockLength(n);
+			int end = Math.min(a.length, to * blockLength(n));
+			if ((double) (end - start) * n <= threshold || to - from < 2) {
+				double[] product = new double[end - start + n - 1];
+				addBlocks(a, b, from, to, product, start);
+				System.arraycopy(product, 0, out, start, end - start);
+				return java.util.Arrays.copyOfRange(product, end - start, product.length);
+			}
+
+			int mid = (from + to) >>> 1;
+			DenseProduct upper = new DenseProduct(a, b, out, mid, to, threshold);
+			upper.fork();
+			double[] lowerTail = new DenseProduct(a, b, out, from, mid, threshold).compute();
+			double[] upperTail = upper.join();
+
+			// the tail of the lower half falls in the upper half, and in its tail
+			// when the upper half is shorter
+			int middle = mid * blockLength(n);
+			for (int i = 0; i < lowerTail.length; i++) {
+				if (middle + i < end) {
+					out[middle + i] += lowerTail[i];
+				} else {
+					upperTail[middle + i - end] += lowerTail[i];
+				}
+			}
+			return upperTail;
+		}
+	}
+
+	/**
+	 * Terms of a polynomial linked list with non-zero coefficients, flattened
+	 * into parallel arrays in list order.
+	 */
+	static class Terms {
+
+		/**
+		 * Coefficients of the terms.
+		 */
+		final float[] coeffs;
+
+		/**
+		 * Degrees of the terms.
+		 */
+		final int[] degrees;
+
+		/**
+		 * Number of terms.
+		 */
+		final int count;
+
+		/**
+		 * Flattens the terms of a polynomial, skipping zero coefficients.
+		 *
+		 * @param poly Polynomial (front of linked list)
+		 */
+		Terms(Node poly) {
+			int n = 0;
+			for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+				if (ptr.term.coeff != 0) {
+					n++;
+				}
+			}
+			coeffs = new float[n];
+			degrees = new int[n];
+			count = n;
+			n = 0;
+			for (Node ptr = poly; ptr != null; ptr = ptr.next) {
+				if (ptr.term.coeff != 0) {
+					coeffs[n] = ptr.term.coeff;
+					degrees[n] = ptr.term.degree;
+					n++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns an estimate of the number of multiply-adds needed to multiply two
+	 * dense polynomials with the given numbers of coefficients.
+	 *
+	 * @param length1 Number of coefficients of the first polynomial
+	 * @param length2 Number of coefficients of the second polynomial
+	 * @return Estimated cost of the dense product
+	 */
+	static long denseCost(long length1, long length2) {
+		long shorter = Math.min(length1, length2);
+		long longer = Math.max(length1, length2);
+		if (shorter < KARATSUBA_THRESHOLD) {
+			return shorter * longer;
+		}
+		if (shorter < FFT_THRESHOLD) {
+			return (long) (Math.pow(shorter, 1.585) * ((longer + shorter - 1) / shorter)) * 4;
+		}
+		long n = Integer.highestOneBit((int) Math.min(length1 + length2, 1 << 30) - 1) << 1;
+		return 6 * n * (63 - Long.numberOfLeadingZeros(n));
+	}
+
+	/**
+	 * Multiplies two polynomials given as coefficient arrays indexed by degree.
+	 *
+	 * @param a Coefficients of the first polynomial
+	 * @param b Coefficients of the second polynomial
+	 * @return Coefficients of the product, of length a.length + b.length - 1
+	 *         (empty if either input is empty)
+	 */
+	public static float[] multiply(float[] a, float[] b) {
+		if (a.length == 0 || b.length == 0) {
+			return new float[0];
+		}
+		if (Math.min(a.length, b.length) < KARATSUBA_THRESHOLD) {
+			return schoolbook(a, b);
+		}
+
+		return round(a, b, multiply(toDouble(a), toDouble(b)));
+	}
+
+	/**
+	 * Multiplies two polynomials given as coefficient arrays indexed by degree
+	 * as multiply does, with the blocks of Karatsuba and FFT products computed
+	 * by the tasks of a ForkJoinPool. The result is identical to that of
+	 * multiply.
+	 *
+	 * @param a Coefficients of the first polynomial
+	 * @param b Coefficients of the second polynomial
+	 * @param threshold Number of partial products below which a task is not
+	 *                  split further
+	 * @return Coefficients of the product, of length a.length + b.length - 1
+	 *         (empty if either input is empty)
+	 */
+	static float[] parallelMultiply(float[] a, float[] b, int threshold) {
+		if (a.length == 0 || b.length == 0) {
+			return new float[0];
+		}
+		if (Math.min(a.length, b.length) < KARATSUBA_THRESHOLD) {
+			return schoolbook(a, b);
+		}
+
+		float[] longer = a.length >= b.length ? a : b;
+		float[] shorter = longer == a ? b : a;
+		double[] product = new double[a.length + b.length - 1];
+		double[] tail = ForkJoinPool.commonPool().invoke(new DenseProduct(toDouble(longer), toDouble(shorter), product,
+				0, blocks(longer.length, shorter.length), threshold));
+		System.arraycopy(tail, 0, product, longer.length, tail.length);
+		return round(a, b, product);
+	}
+
+	/**
+	 * Rounds the double product of a and b to float, resolving the coefficients
+	 * that are not accurate to float precision with resolveSmall.
+	 */
+	private static float[] round(float[] a, float[] b, double[] product) {
+		double tolerance = roundingTolerance(a, b);
+		float[] result = new float[product.length];
+		boolean small = false;
+		for (int i = 0; i < product.length; i++) {
+			if (Math.abs(product[i]) * 0x1p-24 > tolerance) {
+				result[i] = (float) product[i];
+			} else {
+				small = true;
+			}
+		}
+		if (small) {
+			resolveSmall(a, b, product, tolerance, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the coefficients of the product of a and b whose fast double value is
+	 * not accurate to float precision to their schoolbook float value, summed in
+	 * ascending order of the degrees of a over the non-zero terms of the operand
+	 * with fewer of them. When there are so many such coefficients that their
+	 * sums would cost more than a product, those to which no pair of non-zero
+	 * terms contributes are first found with a product of the supports of a and
+	 * b, and left at zero.
+	 */
+	private static void resolveSmall(float[] a, float[] b, double[] product, double tolerance, float[] result) {
+		int[] nonZeroA = nonZero(a);
+		int[] nonZeroB = nonZero(b);
+		int[] small = new int[product.length];
+		int count = 0;
+		double work = 0;
+		for (int k = 0; k < product.length; k++) {
+			if (Math.abs(product[k]) * 0x1p-24 <= tolerance) {
+				small[count++] = k;
+				work += Math.min(Math.min(k + 1, product.length - k), Math.min(nonZeroA.length, nonZeroB.length));
+			}
+		}
+
+		double[] pairs = null;
+		if (work > denseCost(a.length, b.length)) {
+			// counts are exact after rounding, the error of the product being far below 1/2
+			pairs = multiply(support(a), support(b));
+		}
+
+		for (int s = 0; s < count; s++) {
+			int k = small[s];
+			if (pairs != null && Math.rint(pairs[k]) == 0) {
+				continue;
+			}
+			float sum = 0;
+			if (nonZeroA.length <= nonZeroB.length) {
+				for (int q = lowerBound(nonZeroA, nonZeroA.length, k - b.length + 1); q < nonZeroA.length
+						&& nonZeroA[q] <= k; q++) {
+					sum += a[nonZeroA[q]] * b[k - nonZeroA[q]];
+				}
+			} else {
+				for (int q = lowerBound(nonZeroB, nonZeroB.length, k + 1) - 1; q >= 0
+						&& k - nonZeroB[q] < a.length; q--) {
+					int i = k - nonZeroB[q];
+					if (a[i] != 0) {
+						sum += a[i] * b[nonZeroB[q]];
+					}
+				}
+			}
+			result[k] = sum;
+		}
+	}
+
+	/**
+	 * Returns 1 where a coefficient is non-zero and 0 elsewhere.
+	 */
+	private static double[] support(float[] a) {
+		double[] d = new double[a.length];
+		for (int i = 0; i < a.length; i++) {
+			d[i] = a[i] != 0 ? 1 : 0;
+		}
+		return d;
+	}
+
+	/**
+	 * Returns the indices of the non-zero coefficients, in ascending order.
+	 */
+	private static int[] nonZero(float[] a) {
+		int n = 0;
+		for (float c : a) {
+			if (c != 0) {
+				n++;
+			}
+		}
+		int[] indices = new int[n];
+		n = 0;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != 0) {
+				indices[n++] = i;
+			}
+		}
+		return indices;
+	}
+
+	/**
+	 * Multiplies two polynomials given as double coefficient arrays indexed by
+	 * degree, with schoolbook, Karatsuba or FFT multiplication depending on
+	 * their lengths. The result is not cleaned of rounding errors.
+	 *
+	 * @param a Coefficients of the first polynomial
+	 * @param b Coefficients of the second polynomial
+	 * @return Coefficients of the product, of length a.length + b.length - 1
+	 *         (empty if either input is empty)
+	 */
+	static double[] multiply(double[] a, double[] b) {
+		if (a.length == 0 || b.length == 0) {
+			return new double[0];
+		}
+
+		double[] product = new double[a.length + b.length - 1];
+		if (Math.min(a.length, b.length) < KARATSUBA_THRESHOLD) {
+			schoolbook(a, 0, a.length, b, 0, b.length, product, 0);
+		} else if (a.length >= b.length) {
+			addBlocks(a, b, 0, blocks(a.length, b.length), product, 0);
+		} else {
+			addBlocks(b, a, 0, blocks(b.length, a.length), product, 0);
+		}
+		return product;
+	}
+
+	/**
+	 * Returns the length of the blocks addBlocks cuts the longer operand into,
+	 * when the shorter one has n coefficients: n for Karatsuba, and for FFT the
+	 * longest for which the product of a block takes no larger a transform than
+	 * a block of n coefficients.
+	 */
+	private static int blockLength(int n) {
+		if (n < FFT_THRESHOLD) {
+			return n;
+		}
+		int size = Integer.highestOneBit(2 * n - 1);
+		if (size < 2 * n - 1) {
+			size <<= 1;
+		}
+		return size - n + 1;
+	}
+
+	/**
+	 * Returns the number of blocks addBlocks cuts an operand of the given
+	 * length into, when the other one has n coefficients.
+	 */
+	private static int blocks(int length, int n) {
+		return (length + blockLength(n) - 1) / blockLength(n);
+	}
+
+	/**
+	 * Cuts a into blocks of blockLength(b.length) coefficients, the last one
+	 * possibly shorter, and adds the products of the blocks from from to to - 1
+	 * with b into out, whose first coefficient is that of degree outOff. Blocks
+	 * are multiplied with balanced Karatsuba, padded with zeros to the length of
+	 * b, if b is shorter than FFT_THRESHOLD, and with FFT otherwise. Blocks are
+	 * at least as long as b, so that each coefficient of the product gets
+	 * contributions from at most two of them.
+	 */
+	private static void addBlocks(double[] a, double[] b, int from, int to, double[] out, int outOff) {
+		int n = b.length;
+		int length = blockLength(n);
+		double[] block = null, blockProduct = null;
+		for (int k = from; k < to; k++) {
+			int start = k * length;
+			int len = Math.min(length, a.length - start);
+			if (n < FFT_THRESHOLD) {
+				if (block == null) {
+					block = new double[n];
+					blockProduct = new double[2 * n - 1];
+				}
+				System.arraycopy(a, start, block, 0, len);
+				java.util.Arrays.fill(block, len, n, 0);
+				karatsuba(block, 0, b, 0, n, blockProduct, 0);
+			} else {
+				block = len == a.length ? a : java.util.Arrays.copyOfRange(a, start, start + len);
+				if (blockProduct == null || blockProduct.length != len + n - 1) {
+					blockProduct = new double[len + n - 1];
+				}
+				fft(block, b, blockProduct);
+			}
+			for (int i = 0; i < len + n - 1; i++) {
+				out[start - outOff + i] += blockProduct[i];
+			}
+		}
+	}
+
+	/**
+	 * Schoolbook product in float, accumulating the partial products of each
+	 * coefficient in ascending order of the degrees of a.
+	 */
+	private static float[] schoolbook(float[] a, float[] b) {
+		float[] product = new float[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++) {
+			float ai = a[i];
+			if (ai == 0) {
+				continue;
+			}
+			for (int j = 0; j < b.length; j++) {
+				product[i + j] += ai * b[j];
+			}
+		}
+		return product;
+	}
+
+	/**
+	 * Adds the schoolbook product of a[aOff, aOff+aLen) and b[bOff, bOff+bLen)
+	 * into out, starting at outOff.
+	 */
+	private static void schoolbook(double[] a, int aOff, int aLen, double[] b, int bOff, int bLen, double[] out,
+			int outOff) {
+		for (int i = 0; i < aLen; i++) {
+			double ai = a[aOff + i];
+			if (ai == 0) {
+				continue;
+			}
+			int o = outOff + i;
+			for (int j = 0; j < bLen; j++) {
+				out[o + j] += ai * b[bOff + j];
+			}
+		}
+	}
+
+	/**
+	 * Balanced Karatsuba product: sets out[outOff, outOff+2n-1) to the product
+	 * of a[aOff, aOff+n) and b[bOff, bOff+n).
+	 */
+	private static void karatsuba(double[] a, int aOff, double[] b, int bOff, int n, double[] out, int outOff) {
+		if (n < KARATSUBA_THRESHOLD) {
+			java.util.Arrays.fill(out, outOff, outOff + 2 * n - 1, 0);
+			schoolbook(a, aOff, n, b, bOff, n, out, outOff);
+			return;
+		}
+
+		int low = n / 2;
+		int high = n - low;
+
+		// low and high halves, multiplied straight into their slots of out
+		karatsuba(a, aOff, b, bOff, low, out, outOff);
+		out[outOff + 2 * low - 1] = 0;
+		karatsuba(a, aOff + low, b, bOff + low, high, out, outOff + 2 * low);
+
+		// (aLow + aHigh) * (bLow + bHigh) - low product - high product
+		double[] sumA = new double[high];
+		double[] sumB = new double[high];
+		for (int i = 0; i < high; i++) {
+			sumA[i] = a[aOff + low + i];
+			sumB[i] = b[bOff + low + i];
+		}
+		for (int i = 0; i < low; i++) {
+			sumA[i] += a[aOff + i];
+			sumB[i] += b[bOff + i];
+		}
+		double[] middle = new double[2 * high - 1];
+		karatsuba(sumA, 0, sumB, 0, high, middle, 0);
+		for (int i = 0; i < 2 * low - 1; i++) {
+			middle[i] -= out[outOff + i];
+		}
+		for (int i = 0; i < 2 * high - 1; i++) {
+			middle[i] -= out[outOff + 2 * low + i];
+		}
+		for (int i = 0; i < middle.length; i++) {
+			out[outOff + low + i] += middle[i];
+		}
+	}
+
+	/**
+	 * FFT product. Both real inputs are packed into a single complex transform
+	 * (a in the real part, b in the imaginary part), and the spectrum of the
+	 * product is recovered from its conjugate symmetry.
+	 */
+	private static void fft(double[] a, double[] b, double[] out) {
+		int n = Integer.highestOneBit(out.length);
+		if (n < out.length) {
+			n <<= 1;
+		}
+
+		// the error of the packed transform grows with |a|^2 + |b|^2, so a is
+		// scaled by a power of two, exactly, to about the norm of b
+		double normA = 0, normB = 0;
+		for (double c : a) {
+			normA += c * c;
+		}
+		for (double c : b) {
+			normB += c * c;
+		}
+		int scale = normA == 0 || normB == 0 ? 0 : (Math.getExponent(normB) - Math.getExponent(normA)) / 2;
+
+		double[] re = new double[n];
+		double[] im = new double[n];
+		for (int i = 0; i < a.length; i++) {
+			re[i] = Math.scalb(a[i], scale);
+		}
+		System.arraycopy(b, 0, im, 0, b.length);
+
+		double[] cos = new double[n / 2];
+		double[] sin = new double[n / 2];
+		for (int i = 0; i < n / 2; i++) {
+			double angle = 2 * Math.PI * i / n;
+			cos[i] = Math.cos(angle);
+			sin[i] = Math.sin(angle);
+		}
+
+		transform(re, im, cos, sin, false);
+
+		// C = A + iB, so A(k)B(k) = (C(k)^2 - conj(C(n-k))^2) / 4i
+		double[] pr = new double[n];
+		double[] pi = new double[n];
+		for (int k = 0; k < n; k++) {
+			int j = (n - k) & (n - 1);
+			double cr = re[k], ci = im[k];
+			double dr = re[j], di = -im[j];
+			double sr = cr * cr - ci * ci - (dr * dr - di * di);
+			double si = 2 * cr * ci - 2 * dr * di;
+			pr[k] = si / 4;
+			pi[k] = -sr / 4;
+		}
+
+		transform(pr, pi, cos, sin, true);
+		for (int i = 0; i < out.length; i++) {
+			out[i] = Math.scalb(pr[i] / n, -scale);
+		}
+	}
+
+	/**
+	 * In-place iterative radix-2 FFT. The inverse transform is not scaled.
+	 *
+	 * @param re Real parts, length a power of two
+	 * @param im Imaginary parts
+	 * @param cos Cosines of 2*pi*i/n, for i in [0, n/2)
+	 * @param sin Sines of 2*pi*i/n, for i in [0, n/2)
+	 * @param inverse True for the inverse transform
+	 */
+	static void transform(double[] re, double[] im, double[] cos, double[] sin, boolean inverse) {
+		int n = re.length;
+		for (int i = 1, j = 0; i < n; i++) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				double t = re[i];
+				re[i] = re[j];
+				re[j] = t;
+				t = im[i];
+				im[i] = im[j];
+				im[j] = t;
+			}
+		}
+
+		for (int len = 2; len <= n; len <<= 1) {
+			int half = len >> 1;
+			int step = n / len;
+			for (int start = 0; start < n; start += len) {
+				for (int k = 0; k < half; k++) {
+					double wr = cos[k * step];
+					double wi = inverse ? sin[k * step] : -sin[k * step];
+					int p = start + k, q = p + half;
+					double xr = re[q] * wr - im[q] * wi;
+					double xi = re[q] * wi + im[q] * wr;
+					re[q] = re[p] - xr;
+					im[q] = im[p] - xi;
+					re[p] += xr;
+					im[p] += xi;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a bound on the rounding error of the coefficients of the double
+	 * product of a and b. Each coefficient is a sum of products whose absolute
+	 * values add up to at most |a| |b| (Euclidean norms), and the errors of the
+	 * Karatsuba and the balanced FFT products grow with the logarithm of the
+	 * length, staying below a tenth of this bound in tests.
+	 */
+	private static double roundingTolerance(float[] a, float[] b) {
+		double normA = 0, normB = 0;
+		for (float c : a) {
+			normA += (double) c * c;
+		}
+		for (float c : b) {
+			normB += (double) c * c;
+		}
+		int n = a.length + b.length;
+		return Math.sqrt(normA) * Math.sqrt(normB) * Math.ulp(1.0) * 2 * (32 - Integer.numberOfLeadingZeros(n));
+	}
+
+	private static double[] toDouble(float[] a) {
+		double[] d = new double[a.length];
+		for (int i = 0; i < a.length; i++) {
+			d[i] = a[i];
+		}
+		return d;
+	}
+}
@@ -0,0 +1,382 @@
+package poly;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class implements a fast reader for polynomials stored in the text
+ * format of Polynomial.read, that is one "coeff degree" pair per line, with
+ * degrees in descending order.
+ *
+ * Bytes are parsed straight from a memory-mapped file or from a reusable
+ * buffer filled from a channel, with a hand-written number parser, so that no
+ * object is created per line besides the nodes of the result. Input must be
+ * ASCII (or UTF-8); pairs may be separated by any whitespace, and blank lines
+ * are skipped. Numbers that the fast path cannot convert exactly (more than
+ * 19 significant digits, or large decimal exponents) are handed to
+ * Float.parseFloat.
+ *
+ * @author runb-cs112
+ *
+ */
+public class PolynomialReader {
+
+	/**
+	 * Size of the buffer used to read from channels.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Largest part of a file mapped at once.
+	 */
+	static final int WINDOW_SIZE = 1 << 30;
+
+	/**
+	 * Exact powers of ten in float.
+	 */
+	private static final float[] FLOAT_POW10 = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+	/**
+	 * Receives the terms of a polynomial, in input order.
+	 */
+	interface TermSink {
+
+		/**
+		 * Accepts one term.
+		 *
+		 * @param coeff Coefficient
+		 * @param degree Degree
+		 */
+		void term(float coeff, int degree);
+	}
+
+	/**
+	 * Builds a linked list the same way as Polynomial.read, by adding each term
+	 * at the front.
+	 */
+	static class NodeSink implements TermSink {
+
+		/**
+		 * Front of the list built so far.
+		 */
+		Node poly;
+
+		public void term(float coeff, int degree) {
+			poly = new Node(coeff, degree, poly);
+		}
+	}
+
+	/**
+	 * Builds a dense coefficient array, adding up terms of equal degree.
+	 */
+	static class DenseSink implements TermSink {
+
+		/**
+		 * Coefficients, indexed by degree.
+		 */
+		float[] coeffs = new float[16];
+
+		public void term(float coeff, int degree) {
+			if (degree < 0) {
+				throw new IllegalArgumentException("negative degree " + degree);
+			}
+			if (degree >= coeffs.length) {
+				coeffs = java.util.Arrays.copyOf(coeffs, Math.max(degree + 1, 2 * coeffs.length));
+			}
+			coeffs[degree] += coeff;
+		}
+	}
+
+	/**
+	 * Reads a polynomial from a file, which is memory-mapped.
+	 *
+	 * @param path File to read
+	 * @return The polynomial linked list (front node), with the same nodes as
+	 *         Polynomial.read would build from the file
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	public static Node read(Path path) throws IOException {
+		NodeSink sink = new NodeSink();
+		read(path, sink);
+		return sink.poly;
+	}
+
+	/**
+	 * Reads a polynomial from a channel.
+	 *
+	 * @param channel Channel to read, which is read to its end but not closed
+	 * @return The polynomial linked list (front node), with the same nodes as
+	 *         Polynomial.read would build from the input
+	 * @throws IOException If the channel cannot be read or the input is malformed
+	 */
+	public static Node read(ReadableByteChannel channel) throws IOException {
+		NodeSink sink = new NodeSink();
+		read(channel, sink);
+		return sink.poly;
+	}
+
+	/**
+	 * Reads a polynomial in dense form from a file, which is memory-mapped.
+	 *
+	 * @param path File to read
+	 * @return The polynomial, in dense form
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	public static DensePolynomial readDense(Path path) throws IOException {
+		DenseSink sink = new DenseSink();
+		read(path, sink);
+		return DensePolynomial.wrap(sink.coeffs);
+	}
+
+	/**
+	 * Reads a polynomial in dense form from a channel.
+	 *
+	 * @param channel Channel to read, which is read to its end but not closed
+	 * @return The polynomial, in dense form
+	 * @throws IOException If the channel cannot be read or the input is malformed
+	 */
+	public static DensePolynomial readDense(ReadableByteChannel channel) throws IOException {
+		DenseSink sink = new DenseSink();
+		read(channel, sink);
+		return DensePolynomial.wrap(sink.coeffs);
+	}
+
+	/**
+	 * Parses a file, mapping it in windows of at most WINDOW_SIZE bytes. Each
+	 * window after the first starts right after the last complete pair of the
+	 * previous one.
+	 */
+	static void read(Path path, TermSink sink) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			while (position < size) {
+				long length = Math.min(WINDOW_SIZE, size - position);
+				boolean last = position + length == size;
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				int consumed = parse(buffer, last, sink, position);
+				if (consumed == 0 && !last) {
+					throw new IOException("term too long at byte " + position);
+				}
+				position += last ? length : consumed;
+			}
+		}
+	}
+
+	/**
+	 * Parses a channel through a reusable buffer. Bytes of an incomplete pair
+	 * at the end of the buffer are moved to its start before reading more.
+	 */
+	static void read(ReadableByteChannel channel, TermSink sink) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		long offset = 0;
+		boolean last = false;
+		while (!last) {
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					last = true;
+					break;
+				}
+			}
+			buffer.flip();
+			int consumed = parse(buffer, last, sink, offset);
+			if (consumed == 0 && !last && buffer.limit() == buffer.capacity()) {
+				throw new IOException("term too long at byte " + offset);
+			}
+			buffer.position(consumed);
+			buffer.compact();
+			offset += consumed;
+		}
+	}
+
+	/**
+	 * Parses the "coeff degree" pairs of a buffer, from index 0 to its limit.
+	 *
+	 * @param buffer Bytes to parse
+	 * @param last True if no input follows the buffer, false if the pair that
+	 *             runs to the end of the buffer may continue further
+	 * @param sink Receiver of the terms
+	 * @param offset Position of the buffer in the input, for error messages
+	 * @return Number of bytes up to the end of the last complete pair
+	 * @throws IOException If a number is malformed
+	 */
+	static int parse(ByteBuffer buffer, boolean last, TermSink sink, long offset) throws IOException {
+		int limit = buffer.limit();
+		int consumed = 0;
+		int i = 0;
+		while (true) {
+			i = skipWhitespace(buffer, i, limit);
+			if (i == limit) {
+				return limit;
+			}
+			int coeffStart = i;
+			int coeffEnd = skipToken(buffer, i, limit);
+			int degreeStart = skipWhitespace(buffer, coeffEnd, limit);
+			int degreeEnd = skipToken(buffer, degreeStart, limit);
+			if (degreeEnd == limit && !last || degreeStart == degreeEnd) {
+				if (last) {
+					throw new IOException("missing degree at byte " + (offset + coeffStart));
+				}
+				return consumed;
+			}
+
+			float coeff = parseFloat(buffer, coeffStart, coeffEnd, offset);
+			int degree = parseInt(buffer, degreeStart, degreeEnd, offset);
+			sink.term(coeff, degree);
+			consumed = i = degreeEnd;
+		}
+	}
+
+	private static int skipWhitespace(ByteBuffer buffer, int i, int limit) {
+		while (i < limit && buffer.get(i) <= ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	private static int skipToken(ByteBuffer buffer, int i, int limit) {
+		while (i < limit && buffer.get(i) > ' ') {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Parses an optionally signed decimal integer.
+	 */
+	static int parseInt(ByteBuffer buffer, int start, int end, long offset) throws IOException {
+		int i = start;
+		boolean negative = false;
+		if (buffer.get(i) == '-' || buffer.get(i) == '+') {
+			negative = buffer.get(i) == '-';
+			i++;
+		}
+		if (i == end) {
+			throw malformed(buffer, start, end, offset);
+		}
+
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				throw malformed(buffer, start, end, offset);
+			}
+			value = value * 10 + digit;
+			if (value > Integer.MAX_VALUE + 1L) {
+				throw malformed(buffer, start, end, offset);
+			}
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			throw malformed(buffer, start, end, offset);
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Parses a decimal floating point number of the form [+-]digits[.digits][(e|E)[+-]digits].
+	 * When the digits fit in 24 bits and the decimal exponent is at most 10 in
+	 * absolute value, the result is a single correctly rounded float operation
+	 * on exact operands; other numbers are converted by Float.parseFloat.
+	 */
+	static float parseFloat(ByteBuffer buffer, int start, int end, long offset) throws IOException {
+		int i = start;
+		boolean negative = false;
+		if (buffer.get(i) == '-' || buffer.get(i) == '+') {
+			negative = buffer.get(i) == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean exact = true;
+		boolean any = false;
+		for (; i < end && isDigit(buffer.get(i)); i++) {
+			any = true;
+			if (digits < 18) {
+				mantissa = mantissa * 10 + buffer.get(i) - '0';
+				if (mantissa != 0) {
+					digits++;
+				}
+			} else {
+				exact = false;
+			}
+		}
+		if (i < end && buffer.get(i) == '.') {
+			for (i++; i < end && isDigit(buffer.get(i)); i++) {
+				any = true;
+				if (digits < 18) {
+					mantissa = mantissa * 10 + buffer.get(i) - '0';
+					if (mantissa != 0) {
+						digits++;
+					}
+					exponent--;
+				} else {
+					exact = false;
+				}
+			}
+		}
+		if (!any) {
+			return slowParseFloat(buffer, start, end, offset);
+		}
+		if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+				negativeExponent = buffer.get(i) == '-';
+				i++;
+			}
+			if (i == end) {
+				throw malformed(buffer, start, end, offset);
+			}
+			int e = 0;
+			for (; i < end && isDigit(buffer.get(i)); i++) {
+				e = Math.min(e * 10 + buffer.get(i) - '0', 100000);
+			}
+			exponent += negativeExponent ? -e : e;
+		}
+		if (i != end) {
+			return slowParseFloat(buffer, start, end, offset);
+		}
+
+		if (!exact || mantissa > (1 << 24) || exponent < -10 || exponent > 10) {
+			return slowParseFloat(buffer, start, end, offset);
+		}
+		float value = exponent < 0 ? mantissa / FLOAT_POW10[-exponent] : mantissa * FLOAT_POW10[exponent];
+		return negative ? -value : value;
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	/**
+	 * Converts a token with Float.parseFloat, for the numbers that the fast
+	 * path does not handle.
+	 */
+	private static float slowParseFloat(ByteBuffer buffer, int start, int end, long offset) throws IOException {
+		try {
+			return Float.parseFloat(token(buffer, start, end));
+		} catch (NumberFormatException e) {
+			throw malformed(buffer, start, end, offset);
+		}
+	}
+
+	private static IOException malformed(ByteBuffer buffer, int start, int end, long offset) {
+		return new IOException("malformed number \"" + token(buffer, start, end) + "\" at byte " + (offset + start));
+	}
+
+	private static String token(ByteBuffer buffer, int start, int end) {
+		char[] chars = new char[end - start];
+		for (int i = start; i < end; i++) {
+			chars[i - start] = (char) (buffer.get(i) & 0xff);
+		}
+		return new String(chars);
+	}
+}
@@ -51,7 +51,17 @@ public class Polytest {
 		System.out.println("Value at " + x + ": " + Polynomial.evaluate(poly1,x) + "\n");
 	}
 	
-	public static void main(String[] args) throws IOException {
+	/**
+	 * Runs the job manifest given as argument with PolynomialBatch, and without
+	 * arguments, asks for a polynomial file and operations on it.
+	 *
+	 * @param args Manifest file and optional number of threads, or nothing
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length > 0) {
+			PolynomialBatch.main(args);
+			return;
+		}
 		sc1 = new Scanner(System.in);
 		System.out.print("Enter the name of the polynomial file => ");
 		sc2 = new Scanner(new File(sc1.nextLine()));
@@ -0,0 +1,29 @@
+package poly;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class BinaryPolynomialTest {
+
+	@Test
+	public void largeGapWithTinyCoefficientStaysFinite() throws IOException {
+		// 1e-30 x^60 + 1, and 1e-30 x^60 + 2e-30 x^61: x^60 alone overflows
+		// float at x = 10
+		Node[] polys = { new Node(1, 0, new Node(1e-30f, 60, null)),
+				new Node(1e-30f, 60, new Node(2e-30f, 61, null)) };
+		File file = File.createTempFile("poly", ".bin");
+		try {
+			for (Node poly : polys) {
+				BinaryPolynomial.write(poly, file.toPath());
+				float expected = Polynomial.evaluate(poly, 10);
+				assertEquals(expected, BinaryPolynomial.map(file.toPath()).evaluate(10), expected * 1e-6f);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+}
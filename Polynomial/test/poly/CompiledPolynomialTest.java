@@ -0,0 +1,20 @@
+package poly;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class CompiledPolynomialTest {
+
+	@Test
+	public void largeGapWithTinyCoefficientStaysFinite() {
+		// 1e-30 x^60 + 1: x^60 alone overflows float at x = 10
+		Node poly = new Node(1, 0, new Node(1e-30f, 60, null));
+		assertEquals(1e30f, Polynomial.evaluate(poly, 10), 1e24f);
+		assertEquals(Polynomial.evaluate(poly, 10), Polynomial.compile(poly).evaluate(10), 1e24f);
+
+		// and as the lowest degree: 1e-30 x^60 + 2e-30 x^61
+		poly = new Node(1e-30f, 60, new Node(2e-30f, 61, null));
+		assertEquals(Polynomial.evaluate(poly, 10), Polynomial.compile(poly).evaluate(10), 1e25f);
+	}
+}
@@ -0,0 +1,68 @@
+package poly;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MultipointEvaluatorTest {
+
+	/**
+	 * Returns a polynomial of the given degree with random integer coefficients
+	 * in [-9, 9].
+	 */
+	private static double[] random(Random random, int degree) {
+		double[] f = new double[degree + 1];
+		for (int i = 0; i <= degree; i++) {
+			f[i] = random.nextInt(19) - 9;
+		}
+		return f;
+	}
+
+	/**
+	 * Returns n random points in [-w, w].
+	 */
+	private static float[] points(Random random, int n, double w) {
+		float[] xs = new float[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = (float) ((random.nextDouble() * 2 - 1) * w);
+		}
+		return xs;
+	}
+
+	@Test
+	public void usesTreeForPointsNearZero() {
+		Random random = new Random(9);
+		int n = Polynomial.MULTIPOINT_THRESHOLD;
+		double[] f = random(random, n);
+		float[] xs = points(random, n, 0.01);
+		float[] out = new float[n];
+		assertTrue(MultipointEvaluator.evaluate(f, xs, out, n));
+
+		for (int j = 0; j < n; j += n / 64 + 1) {
+			double x = xs[j];
+			double value = 0, scale = 0;
+			for (int i = f.length - 1; i >= 0; i--) {
+				value = value * x + f[i];
+				scale = scale * Math.abs(x) + Math.abs(f[i]);
+			}
+			assertEquals(value, out[j], MultipointEvaluator.TOLERANCE * scale + Math.ulp((float) value));
+		}
+	}
+
+	@Test
+	public void rejectsPointsSpreadOverUnitInterval() {
+		// the product of (x - xs[i]) over 32 points of [-1, 1] already has
+		// coefficients far above 2^MAX_GROWTH_BITS
+		Random random = new Random(10);
+		int n = Polynomial.MULTIPOINT_THRESHOLD;
+		double[] f = random(random, n);
+		float[] xs = points(random, n, 1);
+		assertFalse(MultipointEvaluator.evaluate(f, xs, new float[n], n));
+		xs = points(random, n, 0.02);
+		assertFalse(MultipointEvaluator.evaluate(f, xs, new float[n], n));
+	}
+}
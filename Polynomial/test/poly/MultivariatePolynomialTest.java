@@ -0,0 +1,38 @@
+package poly;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MultivariatePolynomialTest {
+
+	@Test
+	public void largeExponentWithTinyCoefficientStaysFinite() {
+		// 1e-30 x0^60 x1^2: x0^60 alone overflows float at x0 = 10
+		MultivariatePolynomial poly = MultivariatePolynomial.of(2, new float[] { 1e-30f },
+				new int[][] { { 60, 2 } });
+		assertEquals(0.25e30f, poly.evaluate(new float[] { 10, 0.5f }), 1e24f);
+	}
+
+	@Test
+	public void productWithFewDistinctMonomials() {
+		// (x0^(n-1) + x0^(n-2) x1 + ... + x1^(n-1))^2 has 2n - 1 terms for n^2
+		// partial products, the one of x0^k x1^(2n-2-k) with coefficient
+		// min(k, 2n-2-k) + 1
+		int n = 5000;
+		float[] coeffs = new float[n];
+		int[][] exponents = new int[n][];
+		for (int i = 0; i < n; i++) {
+			coeffs[i] = 1;
+			exponents[i] = new int[] { i, n - 1 - i };
+		}
+		MultivariatePolynomial poly = MultivariatePolynomial.of(2, coeffs, exponents);
+		MultivariatePolynomial square = poly.multiply(poly);
+		assertEquals(2 * n - 1, square.terms());
+		for (int i = 0; i < square.terms(); i++) {
+			int k = square.exponent(i, 0);
+			assertEquals(2 * n - 2 - k, square.exponent(i, 1));
+			assertEquals(Math.min(k, 2 * n - 2 - k) + 1, square.coeff(i), 0);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package poly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PolynomialDivisionTest {
+
+	/**
+	 * Returns a polynomial of the given degree with random integer coefficients
+	 * in [-9, 9] and a non-zero leading coefficient.
+	 */
+	private static double[] random(Random random, int degree) {
+		double[] a = new double[degree + 1];
+		for (int i = 0; i <= degree; i++) {
+			a[i] = random.nextInt(19) - 9;
+		}
+		if (a[degree] == 0) {
+			a[degree] = 1;
+		}
+		return a;
+	}
+
+	private static double[] schoolbook(double[] a, double[] b) {
+		double[] product = new double[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < b.length; j++) {
+				product[i + j] += a[i] * b[j];
+			}
+		}
+		return product;
+	}
+
+	private static int[] residues(double[] a, int p) {
+		int[] r = new int[a.length];
+		for (int i = 0; i < a.length; i++) {
+			r[i] = (int) (((long) a[i] % p + p) % p);
+		}
+		return r;
+	}
+
+	@Test
+	public void coprimeInputsHaveConstantGcd() {
+		Random random = new Random(5);
+		int[][] degrees = { { 12, 7 }, { 139, 87 }, { 300, 299 } };
+		for (int[] degree : degrees) {
+			for (int t = 0; t < 20; t++) {
+				double[] a = random(random, degree[0]);
+				double[] b = random(random, degree[1]);
+				int p = NumberTheoreticTransform.PRIMES[0];
+				int expected = ModularDivision.gcd(residues(a, p), residues(b, p), p).length;
+				assertEquals(degree[0] + "/" + degree[1], expected, PolynomialDivision.gcd(a, b).length);
+			}
+		}
+		assertArrayEquals(new double[] { 1 },
+				PolynomialDivision.gcd(new double[] { 1, 0, 1 }, new double[] { 0.1f, 1 }), 0);
+	}
+
+	@Test
+	public void findsCommonFactor() {
+		Random random = new Random(6);
+		for (int degree = 1; degree <= 3; degree++) {
+			double[] g = random(random, degree);
+			g[degree] = 1;
+			double[] a = schoolbook(g, random(random, 5));
+			double[] b = schoolbook(g, random(random, 4));
+			double[] gcd = PolynomialDivision.gcd(a, b);
+			assertEquals(degree + 1, gcd.length);
+			assertArrayEquals(g, gcd, 1e-9);
+		}
+	}
+
+	@Test
+	public void divisionByFastGrowingReciprocalStaysFinite() {
+		Random random = new Random(7);
+		double[] a = random(random, 300);
+		double[] b = random(random, 150);
+		b[150] = 1;
+		double[][] qr = PolynomialDivision.divide(schoolbook(a, b), b);
+		for (double[] c : qr) {
+			for (double v : c) {
+				assertFalse(Double.isNaN(v) || Double.isInfinite(v));
+			}
+		}
+		assertArrayEquals(a, qr[0], 1e-6);
+	}
+
+	@Test
+	public void roundTripsLongQuotientsAndDivisors() {
+		Random random = new Random(8);
+		int[][] degrees = { { 64, 64 }, { 69, 69 }, { 99, 99 }, { 199, 299 }, { 300, 100 } };
+		for (int[] degree : degrees) {
+			for (int t = 0; t < 5; t++) {
+				double[] b = random(random, degree[0]);
+				b[degree[0]] = 1;
+				double[] q = new double[degree[1] + 1];
+				for (int i = 0; i < q.length; i++) {
+					q[i] = random.nextInt(5) - 2;
+				}
+				q[degree[1]] = 1;
+				double[] r = random(random, degree[0] - 1);
+				double[] a = schoolbook(q, b);
+				for (int i = 0; i < r.length; i++) {
+					a[i] += r[i];
+				}
+
+				String message = degree[0] + "/" + degree[1];
+				double[][] qr = PolynomialDivision.divide(a, b);
+				assertArrayEquals(message, q, qr[0], 1e-9);
+				assertArrayEquals(message, r, qr[1], 1e-6);
+			}
+		}
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void overflowingQuotientThrows() {
+		Random random = new Random(7);
+		double[] a = random(random, 1000);
+		double[] b = random(random, 500);
+		b[500] = 1;
+		PolynomialDivision.divideRounded(a, b);
+	}
+}
@@ -0,0 +1,55 @@
+package poly;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class PolynomialExpressionTest {
+
+	/**
+	 * Depth of the chains of sums, well beyond what recursion over the graph
+	 * can go through with the default thread stack.
+	 */
+	private static final int DEPTH = 20000;
+
+	@Test
+	public void deepChainOfSparseSums() {
+		PolynomialExpression.Builder builder = new PolynomialExpression.Builder();
+		PolynomialExpression e = builder.of(null);
+		for (int i = 0; i < DEPTH; i++) {
+			e = builder.add(e, builder.of(new Node(1, 10 * i, null)));
+		}
+
+		Node poly = e.toNode();
+		for (int i = 0; i < DEPTH; i++, poly = poly.next) {
+			assertEquals(10 * i, poly.term.degree);
+			assertEquals(1, poly.term.coeff, 0);
+		}
+		assertNull(poly);
+	}
+
+	@Test
+	public void deepChainOfDenseSumsAndProducts() {
+		PolynomialExpression.Builder builder = new PolynomialExpression.Builder();
+		Node one = new Node(1, 0, null), x = new Node(1, 1, null);
+		PolynomialExpression e = builder.of(one);
+		Node expected = one;
+		for (int i = 1; i < DEPTH; i++) {
+			if (i % 1000 == 0) {
+				e = builder.multiply(e, builder.of(x));
+				expected = Polynomial.multiply(expected, x);
+			}
+			e = builder.add(e, builder.of(new Node(i, 0, null)));
+			expected = Polynomial.add(expected, new Node(i, 0, null));
+		}
+
+		float[] coeffs = e.toDense().coeffs;
+		assertEquals((DEPTH - 1) / 1000, coeffs.length - 1);
+		for (int k = 0; k < coeffs.length; k++, expected = expected.next) {
+			assertEquals(k, expected.term.degree);
+			assertEquals(expected.term.coeff, coeffs[k], Math.abs(expected.term.coeff) * 1e-6f);
+		}
+		assertNull(expected);
+	}
+}
@@ -0,0 +1,124 @@
+package poly;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PolynomialMultiplierTest {
+
+	/**
+	 * Returns the schoolbook product in float, in the order of the original
+	 * linked list loop.
+	 */
+	private static float[] schoolbook(float[] a, float[] b) {
+		float[] product = new float[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < b.length; j++) {
+				product[i + j] += a[i] * b[j];
+			}
+		}
+		return product;
+	}
+
+	@Test
+	public void keepsSmallExactCoefficients() {
+		for (int n : new int[] { 100, 1000 }) {
+			float[] a = new float[n];
+			float[] b = new float[n];
+			java.util.Arrays.fill(a, 1000);
+			java.util.Arrays.fill(b, 1000);
+			a[0] = 1e-6f;
+			b[0] = 1e-6f;
+
+			float[] product = PolynomialMultiplier.multiply(a, b);
+			assertEquals(a[0] * b[0], product[0], 0);
+			assertEquals(a[0] * b[1] + a[1] * b[0], product[1], 0);
+		}
+	}
+
+	@Test
+	public void keepsSmallConstantTermOfNodeProduct() {
+		Node poly1 = null, poly2 = null;
+		for (int degree = 99; degree > 0; degree--) {
+			poly1 = new Node(1000, degree, poly1);
+			poly2 = new Node(1000, degree, poly2);
+		}
+		poly1 = new Node(1e-6f, 0, poly1);
+		poly2 = new Node(1e-6f, 0, poly2);
+
+		Node product = Polynomial.multiply(poly1, poly2);
+		assertEquals(0, product.term.degree);
+		assertEquals(1e-6f * 1e-6f, product.term.coeff, 0);
+	}
+
+	@Test
+	public void cancelledCoefficientsMatchSchoolbook() {
+		Random random = new Random(2);
+		for (int n : new int[] { 64, 300, 700, 2000 }) {
+			// even polynomials: every odd coefficient of the product is exactly 0
+			float[] a = new float[n];
+			float[] b = new float[n];
+			for (int i = 0; i < n; i += 2) {
+				a[i] = random.nextInt(200) - 100;
+				b[i] = random.nextInt(200) - 100;
+			}
+			a[n / 2 * 2 - 2] = 1e-3f;
+
+			float[] expected = schoolbook(a, b);
+			float[] product = PolynomialMultiplier.multiply(a, b);
+			for (int k = 0; k < product.length; k++) {
+				if (k % 2 == 1) {
+					assertEquals(0, product[k], 0);
+				} else {
+					assertEquals("degree " + k, expected[k], product[k], Math.abs(expected[k]) * 1e-5f);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void parallelMultiplyMatchesMultiply() {
+		Random random = new Random(3);
+		int[][] lengths = { { 3000, 100 }, { 700, 5000 }, { 5000, 700 }, { 2000, 1999 }, { 1200, 600 } };
+		for (int[] length : lengths) {
+			float[] a = new float[length[0]];
+			float[] b = new float[length[1]];
+			for (int i = 0; i < a.length; i++) {
+				a[i] = random.nextFloat() - 0.5f;
+			}
+			for (int i = 0; i < b.length; i++) {
+				b[i] = random.nextFloat() - 0.5f;
+			}
+
+			float[] expected = PolynomialMultiplier.multiply(a, b);
+			for (int threshold : new int[] { 1, PolynomialMultiplier.PARALLEL_THRESHOLD }) {
+				assertArrayEquals(length[0] + "x" + length[1], expected,
+						PolynomialMultiplier.parallelMultiply(a, b, threshold), 0);
+			}
+		}
+	}
+
+	@Test
+	public void parallelMultiplyMatchesMultiplyOnDenseLists() {
+		Random random = new Random(4);
+		Node poly1 = null, poly2 = null;
+		for (int degree = 4000; degree >= 0; degree--) {
+			poly1 = new Node(random.nextInt(2000) - 1000, degree, poly1);
+			if (degree < 900) {
+				poly2 = new Node(random.nextFloat(), degree, poly2);
+			}
+		}
+
+		Node expected = PolynomialMultiplier.multiply(poly1, poly2);
+		Node product = PolynomialMultiplier.parallelMultiply(poly1, poly2, 1);
+		for (; expected != null; expected = expected.next, product = product.next) {
+			assertEquals(expected.term.degree, product.term.degree);
+			assertEquals(expected.term.coeff, product.term.coeff, 0);
+		}
+		assertNull(product);
+	}
+}